@@ -3,10 +3,11 @@ package io.vertx.workshop.trader.impl;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.eventbus.MessageConsumer;
-import io.vertx.core.json.JsonObject;
 import io.vertx.servicediscovery.types.EventBusService;
-import io.vertx.servicediscovery.types.MessageSource;
+import io.vertx.workshop.common.ConflatingQuoteStream;
 import io.vertx.workshop.common.MicroServiceVerticle;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
 import io.vertx.workshop.portfolio.PortfolioService;
 
 /**
@@ -18,17 +19,21 @@ public class JavaCompulsiveTraderVerticle extends MicroServiceVerticle {
   public void start(Future<Void> future) {
     super.start();
 
+    // Quotes are received using a binary codec.
+    QuoteCodec.register(vertx);
+
     //----
     // Initialize the trader
     String company = TraderUtils.pickACompany();
     int numberOfShares = TraderUtils.pickANumber();
+    String account = config().getString("account", PortfolioService.DEFAULT_ACCOUNT);
     System.out.println("Java compulsive trader configured for company " + company + " and shares: " + numberOfShares);
 
     // We need to retrieve two services, create two futures object that will get the services
-    Future<MessageConsumer<JsonObject>> marketFuture = Future.future();
+    Future<MessageConsumer<Quote>> marketFuture = Future.future();
     Future<PortfolioService> portfolioFuture = Future.future();
     // Retrieve the services, use the "special" completed to assign the future
-    MessageSource.getConsumer(discovery, new JsonObject().put("name", "market-data"), marketFuture);
+    TraderUtils.getMarketConsumer(discovery, company, marketFuture);
     EventBusService.getProxy(discovery, PortfolioService.class, portfolioFuture);
 
     // When done (both services retrieved), execute the handler
@@ -39,12 +44,13 @@ public class JavaCompulsiveTraderVerticle extends MicroServiceVerticle {
       } else {
         // Our services:
         PortfolioService portfolio = portfolioFuture.result();
-        MessageConsumer<JsonObject> marketConsumer = marketFuture.result();
+        MessageConsumer<Quote> marketConsumer = marketFuture.result();
 
-        // Listen the market...
-        marketConsumer.handler(message -> {
-          JsonObject quote = message.body();
-          TraderUtils.dumbTradingLogic(company, numberOfShares, portfolio, quote);
+        // Listen the market... While a trade is in progress, only the last quote is kept.
+        ConflatingQuoteStream market = new ConflatingQuoteStream(marketConsumer);
+        market.handler(quote -> {
+          market.pause();
+          TraderUtils.dumbTradingLogic(company, numberOfShares, portfolio, account, quote, v -> market.resume());
         });
 
         future.complete();
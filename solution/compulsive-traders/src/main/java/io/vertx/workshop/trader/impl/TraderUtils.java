@@ -1,6 +1,12 @@
 package io.vertx.workshop.trader.impl;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.MessageSource;
+import io.vertx.workshop.common.Quote;
 import io.vertx.workshop.portfolio.PortfolioService;
 
 import java.util.Map;
@@ -33,25 +39,95 @@ public class TraderUtils {
     return RANDOM.nextInt(6) + 1;
   }
 
-  public static void dumbTradingLogic(String company, int numberOfShares, PortfolioService portfolio, JsonObject quote) {
-    if (quote.getString("name").equals(company)) {
-      if (TraderUtils.timeToSell()) {
-        portfolio.sell(numberOfShares, quote, p -> {
-          if (p.succeeded()) {
-            System.out.println("Sold " + numberOfShares + " of " + company + "!");
-          } else {
-            System.out.println("D'oh, failed to sell " + numberOfShares + " of " + company + " : " + p.cause());
-          }
-        });
+  /**
+   * Retrieves a consumer receiving the quotes of the given company. It uses the message source of the company
+   * (published by the quote generator for each company), and falls back to the `market-data` source (receiving the
+   * quotes of all the companies) if not found.
+   *
+   * @param discovery the discovery service
+   * @param company   the company
+   * @param handler   the handler receiving the consumer
+   */
+  public static void getMarketConsumer(ServiceDiscovery discovery, String company,
+                                       Handler<AsyncResult<MessageConsumer<Quote>>> handler) {
+    MessageSource.<Quote>getConsumer(discovery, new JsonObject().put("company", company), ar -> {
+      if (ar.succeeded()) {
+        handler.handle(ar);
       } else {
-        portfolio.buy(numberOfShares, quote, p -> {
-          if (p.succeeded()) {
-            System.out.println("Bought " + numberOfShares + " of " + company + " !");
-          } else {
-            System.out.println("D'oh, failed to buy " + numberOfShares + " of " + company + " : " + p.cause());
-          }
-        });
+        MessageSource.getConsumer(discovery, new JsonObject().put("name", "market-data"), handler);
       }
+    });
+  }
+
+  public static void dumbTradingLogic(String company, int numberOfShares, PortfolioService portfolio, String account,
+                                      JsonObject quote) {
+    if (quote.getString("name").equals(company)) {
+      trade(company, numberOfShares, portfolio, account, quote, null);
+    }
+  }
+
+  private static void trade(String company, int numberOfShares, PortfolioService portfolio, String account,
+                            JsonObject quote, Handler<Void> done) {
+    if (TraderUtils.timeToSell()) {
+      portfolio.sell(account, numberOfShares, quote, p -> {
+        if (p.succeeded()) {
+          System.out.println("Sold " + numberOfShares + " of " + company + "!");
+        } else {
+          System.out.println("D'oh, failed to sell " + numberOfShares + " of " + company + " : " + p.cause());
+        }
+        if (done != null) {
+          done.handle(null);
+        }
+      });
+    } else {
+      portfolio.buy(account, numberOfShares, quote, p -> {
+        if (p.succeeded()) {
+          System.out.println("Bought " + numberOfShares + " of " + company + " !");
+        } else {
+          System.out.println("D'oh, failed to buy " + numberOfShares + " of " + company + " : " + p.cause());
+        }
+        if (done != null) {
+          done.handle(null);
+        }
+      });
+    }
+  }
+
+  /**
+   * Version called with the quotes received from the market, the JSON representation is only computed when the quote
+   * concerns the given company.
+   *
+   * @param company        the company
+   * @param numberOfShares the number of share to buy or sell
+   * @param portfolio      the portfolio service
+   * @param account        the account of the trader
+   * @param quote          the quote
+   */
+  public static void dumbTradingLogic(String company, int numberOfShares, PortfolioService portfolio, String account,
+                                      Quote quote) {
+    if (quote.getName().equals(company)) {
+      dumbTradingLogic(company, numberOfShares, portfolio, account, quote.toJson());
+    }
+  }
+
+  /**
+   * Version called with the quotes received from the market, calling the given handler when the operation has
+   * completed (immediately if the quote does not concern the given company). It lets the trader ignore the quotes
+   * received while it is busy (see {@link io.vertx.workshop.common.ConflatingQuoteStream}).
+   *
+   * @param company        the company
+   * @param numberOfShares the number of share to buy or sell
+   * @param portfolio      the portfolio service
+   * @param account        the account of the trader
+   * @param quote          the quote
+   * @param done           the handler called when done
+   */
+  public static void dumbTradingLogic(String company, int numberOfShares, PortfolioService portfolio, String account,
+                                      Quote quote, Handler<Void> done) {
+    if (quote.getName().equals(company)) {
+      trade(company, numberOfShares, portfolio, account, quote.toJson(), done);
+    } else {
+      done.handle(null);
     }
   }
 
@@ -61,11 +137,12 @@ public class TraderUtils {
    * @param company        the company
    * @param numberOfShares the number of share to buy or sell
    * @param portfolio      the portfolio service
+   * @param account        the account of the trader
    * @param quote          the quote
    */
   public static void dumbTradingLogic(String company, int numberOfShares,
-                                      PortfolioService portfolio, Map<String, Object> quote) {
+                                      PortfolioService portfolio, String account, Map<String, Object> quote) {
     JsonObject json = new JsonObject(quote);
-    dumbTradingLogic(company, numberOfShares, portfolio, json);
+    dumbTradingLogic(company, numberOfShares, portfolio, account, json);
   }
 }
@@ -3,10 +3,10 @@ package io.vertx.workshop.trader.impl
 import io.vertx.core.CompositeFuture
 import io.vertx.core.Future
 import io.vertx.core.eventbus.MessageConsumer
-import io.vertx.core.json.JsonObject
 import io.vertx.servicediscovery.ServiceDiscovery
 import io.vertx.servicediscovery.types.EventBusService
-import io.vertx.servicediscovery.types.MessageSource
+import io.vertx.workshop.common.Quote
+import io.vertx.workshop.common.QuoteCodec
 import io.vertx.workshop.portfolio.PortfolioService
 
 class KotlinCompulsiveTraderVerticle : io.vertx.core.AbstractVerticle() {
@@ -14,16 +14,20 @@ class KotlinCompulsiveTraderVerticle : io.vertx.core.AbstractVerticle() {
 
     val company = TraderUtils.pickACompany()
     val numberOfShares = TraderUtils.pickANumber()
+    val account = config().getString("account", PortfolioService.DEFAULT_ACCOUNT)
 
     System.out.println("Groovy compulsive trader configured for company $company and shares: $numberOfShares");
 
+    // Quotes are received using a binary codec.
+    QuoteCodec.register(vertx)
+
     // We create the discovery service object.
     val discovery = ServiceDiscovery.create(vertx)
 
-    val marketFuture: Future<MessageConsumer<JsonObject>> = Future.future()
+    val marketFuture: Future<MessageConsumer<Quote>> = Future.future()
     val portfolioFuture: Future<PortfolioService> = Future.future()
 
-    MessageSource.getConsumer<JsonObject>(discovery, JsonObject().put("name", "market-data"), marketFuture)
+    TraderUtils.getMarketConsumer(discovery, company, marketFuture)
     EventBusService.getProxy<PortfolioService>(discovery, PortfolioService::class.java, portfolioFuture)
 
     // When done (both services retrieved), execute the handler
@@ -38,7 +42,7 @@ class KotlinCompulsiveTraderVerticle : io.vertx.core.AbstractVerticle() {
         // Listen the market...
         marketConsumer.handler { message ->
           val quote = message.body();
-          TraderUtils.dumbTradingLogic(company, numberOfShares, portfolio, quote)
+          TraderUtils.dumbTradingLogic(company, numberOfShares, portfolio, account, quote)
         }
       }
     }
@@ -63,12 +63,13 @@ public class PortfolioServiceVertxEBProxy implements PortfolioService {
     } catch (IllegalStateException ex) {}
   }
 
-  public void getPortfolio(Handler<AsyncResult<Portfolio>> resultHandler) {
+  public void getPortfolio(String account, Handler<AsyncResult<Portfolio>> resultHandler) {
     if (closed) {
       resultHandler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
       return;
     }
     JsonObject _json = new JsonObject();
+    _json.put("account", account);
     DeliveryOptions _deliveryOptions = (_options != null) ? new DeliveryOptions(_options) : new DeliveryOptions();
     _deliveryOptions.addHeader("action", "getPortfolio");
     _vertx.eventBus().<JsonObject>send(_address, _json, _deliveryOptions, res -> {
@@ -80,12 +81,13 @@ public class PortfolioServiceVertxEBProxy implements PortfolioService {
     });
   }
 
-  public void buy(int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
+  public void buy(String account, int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
     if (closed) {
       resultHandler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
       return;
     }
     JsonObject _json = new JsonObject();
+    _json.put("account", account);
     _json.put("amount", amount);
     _json.put("quote", quote);
     DeliveryOptions _deliveryOptions = (_options != null) ? new DeliveryOptions(_options) : new DeliveryOptions();
@@ -99,12 +101,13 @@ public class PortfolioServiceVertxEBProxy implements PortfolioService {
     });
   }
 
-  public void sell(int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
+  public void sell(String account, int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
     if (closed) {
       resultHandler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
       return;
     }
     JsonObject _json = new JsonObject();
+    _json.put("account", account);
     _json.put("amount", amount);
     _json.put("quote", quote);
     DeliveryOptions _deliveryOptions = (_options != null) ? new DeliveryOptions(_options) : new DeliveryOptions();
@@ -118,12 +121,13 @@ public class PortfolioServiceVertxEBProxy implements PortfolioService {
     });
   }
 
-  public void evaluate(Handler<AsyncResult<Double>> resultHandler) {
+  public void evaluate(String account, Handler<AsyncResult<Double>> resultHandler) {
     if (closed) {
       resultHandler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
       return;
     }
     JsonObject _json = new JsonObject();
+    _json.put("account", account);
     DeliveryOptions _deliveryOptions = (_options != null) ? new DeliveryOptions(_options) : new DeliveryOptions();
     _deliveryOptions.addHeader("action", "evaluate");
     _vertx.eventBus().<Double>send(_address, _json, _deliveryOptions, res -> {
@@ -122,7 +122,7 @@ public class PortfolioServiceVertxProxyHandler extends ProxyHandler {
       accessed();
       switch (action) {
         case "getPortfolio": {
-          service.getPortfolio(res -> {
+          service.getPortfolio((java.lang.String)json.getValue("account"), res -> {
             if (res.failed()) {
               if (res.cause() instanceof ServiceException) {
                 msg.reply(res.cause());
@@ -136,7 +136,7 @@ public class PortfolioServiceVertxProxyHandler extends ProxyHandler {
           break;
         }
         case "buy": {
-          service.buy(json.getValue("amount") == null ? null : (json.getLong("amount").intValue()), (io.vertx.core.json.JsonObject)json.getValue("quote"), res -> {
+          service.buy((java.lang.String)json.getValue("account"), json.getValue("amount") == null ? null : (json.getLong("amount").intValue()), (io.vertx.core.json.JsonObject)json.getValue("quote"), res -> {
             if (res.failed()) {
               if (res.cause() instanceof ServiceException) {
                 msg.reply(res.cause());
@@ -150,7 +150,7 @@ public class PortfolioServiceVertxProxyHandler extends ProxyHandler {
           break;
         }
         case "sell": {
-          service.sell(json.getValue("amount") == null ? null : (json.getLong("amount").intValue()), (io.vertx.core.json.JsonObject)json.getValue("quote"), res -> {
+          service.sell((java.lang.String)json.getValue("account"), json.getValue("amount") == null ? null : (json.getLong("amount").intValue()), (io.vertx.core.json.JsonObject)json.getValue("quote"), res -> {
             if (res.failed()) {
               if (res.cause() instanceof ServiceException) {
                 msg.reply(res.cause());
@@ -164,7 +164,7 @@ public class PortfolioServiceVertxProxyHandler extends ProxyHandler {
           break;
         }
         case "evaluate": {
-          service.evaluate(createHandler(msg));
+          service.evaluate((java.lang.String)json.getValue("account"), createHandler(msg));
           break;
         }
         default: {
@@ -2,19 +2,27 @@ package io.vertx.workshop.portfolio;
 
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Prices;
 
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Structure representing a portfolio. It stores the available cash and the owned shares.
+ * <p>
+ * The cash is stored in ticks (see {@link Prices}), so the operations on the cash are exact. The JSON representation
+ * uses a decimal number.
+ * <p>
+ * The shares are stored in a primitive map (see {@link Positions}), updated with {@link #setAmount(String, int)}. The
+ * map returned by {@link #getShares()} is a copy, used for the JSON representation.
  */
 @DataObject(generateConverter = true)
 public class Portfolio {
 
-  private Map<String, Integer> shares = new TreeMap<>();
+  private Positions shares = new Positions();
 
-  private double cash;
+  private long cash;
 
   /**
    * Creates a new instance of {@link Portfolio}.
@@ -29,7 +37,7 @@ public class Portfolio {
    * @param other the instance to copy
    */
   public Portfolio(Portfolio other) {
-    this.shares = new TreeMap<>(other.shares);
+    this.shares = new Positions(other.shares);
     this.cash = other.cash;
   }
 
@@ -53,10 +61,12 @@ public class Portfolio {
   }
 
   /**
-   * @return the owned shared (name -> number)
+   * @return a copy of the owned shares (name -> number), sorted by name
    */
   public Map<String, Integer> getShares() {
-    return shares;
+    Map<String, Integer> copy = new TreeMap<>();
+    shares.forEach(copy::put);
+    return copy;
   }
 
   /**
@@ -66,7 +76,8 @@ public class Portfolio {
    * @return the current {@link Portfolio}
    */
   public Portfolio setShares(Map<String, Integer> shares) {
-    this.shares = shares;
+    this.shares.clear();
+    shares.forEach(this.shares::put);
     return this;
   }
 
@@ -74,7 +85,7 @@ public class Portfolio {
    * @return the available cash.
    */
   public double getCash() {
-    return cash;
+    return Prices.toDouble(cash);
   }
 
   /**
@@ -84,6 +95,24 @@ public class Portfolio {
    * @return the current {@link Portfolio}
    */
   public Portfolio setCash(double cash) {
+    this.cash = Prices.toTicks(cash);
+    return this;
+  }
+
+  /**
+   * @return the available cash, in ticks
+   */
+  public long cashInTicks() {
+    return cash;
+  }
+
+  /**
+   * Sets the available cash.
+   *
+   * @param cash the cash, in ticks
+   * @return the current {@link Portfolio}
+   */
+  public Portfolio cashInTicks(long cash) {
     this.cash = cash;
     return this;
   }
@@ -98,10 +127,28 @@ public class Portfolio {
    * @return the number of owned shares, {@literal 0} is none.
    */
   public int getAmount(String name) {
-    Integer current = shares.get(name);
-    if (current == null) {
-      return 0;
-    }
-    return current;
+    return shares.get(name);
+  }
+
+  /**
+   * Sets the number of owned shares of the specified company.
+   *
+   * @param name   the name of the company
+   * @param amount the number of owned shares, {@literal 0} removes the company from the portfolio
+   * @return the current {@link Portfolio}
+   */
+  public Portfolio setAmount(String name, int amount) {
+    shares.put(name, amount);
+    return this;
+  }
+
+  /**
+   * Iterates over the owned shares without copying them, in no particular order. The portfolio must not be modified
+   * during the iteration.
+   *
+   * @param consumer called with the name of each company and the number of owned shares
+   */
+  public void forEachShare(ObjIntConsumer<String> consumer) {
+    shares.forEach(consumer);
   }
 }
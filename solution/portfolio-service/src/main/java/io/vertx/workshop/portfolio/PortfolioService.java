@@ -16,6 +16,10 @@ import io.vertx.serviceproxy.ProxyHelper;
  * compile time.
  * <p>
  * All method are asynchronous and so ends with a {@link Handler} parameter.
+ * <p>
+ * Each trader has its own account (and portfolio), created with the initial amount of money on first use. The
+ * accounts are partitioned across several shards, the service published on {@link #ADDRESS} routes the calls to the
+ * shard managing the account.
  */
 @VertxGen
 @ProxyGen
@@ -31,39 +35,48 @@ public interface PortfolioService {
    */
   String EVENT_ADDRESS = "portfolio";
 
+  /**
+   * The account used when the trader does not have its own account.
+   */
+  String DEFAULT_ACCOUNT = "default";
+
   /**
    * Gets the portfolio.
    *
+   * @param account       the account
    * @param resultHandler the result handler called when the portfolio has been retrieved. The async result indicates
    *                      whether the call was successful or not.
    */
-  void getPortfolio(Handler<AsyncResult<Portfolio>> resultHandler);
+  void getPortfolio(String account, Handler<AsyncResult<Portfolio>> resultHandler);
 
   /**
    * Buy `amount` shares of the given shares (quote).
    *
+   * @param account       the account
    * @param amount        the amount
    * @param quote         the last quote
    * @param resultHandler the result handler with the updated portfolio. If the action cannot be executed, the async
    *                      result is market as a failure (not enough money, not enough shares available...)
    */
-  void buy(int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler);
+  void buy(String account, int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler);
 
   /**
    * Sell `amount` shares of the given shares (quote).
    *
+   * @param account       the account
    * @param amount        the amount
    * @param quote         the last quote
    * @param resultHandler the result handler with the updated portfolio. If the action cannot be executed, the async
    *                      result is market as a failure (not enough share...)
    */
-  void sell(int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler);
+  void sell(String account, int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler);
 
   /**
    * Evaluates the current value of the portfolio.
    *
+   * @param account       the account
    * @param resultHandler the result handler with the valuation
    */
-  void evaluate(Handler<AsyncResult<Double>> resultHandler);
+  void evaluate(String account, Handler<AsyncResult<Double>> resultHandler);
 
 }
@@ -0,0 +1,156 @@
+package io.vertx.workshop.portfolio;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The owned shares of a {@link Portfolio}: a map from the name of the company to the number of shares, stored in two
+ * arrays with open addressing (linear probing), so the updates do not box the amounts, nor allocate entries. The
+ * companies without shares are not stored.
+ */
+final class Positions {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private String[] names;
+  private int[] amounts;
+  private int size;
+
+  Positions() {
+    names = new String[INITIAL_CAPACITY];
+    amounts = new int[INITIAL_CAPACITY];
+  }
+
+  Positions(Positions other) {
+    names = other.names.clone();
+    amounts = other.amounts.clone();
+    size = other.size;
+  }
+
+  /**
+   * @param name the name of the company
+   * @return the number of shares, {@literal 0} if none
+   */
+  int get(String name) {
+    int mask = names.length - 1;
+    for (int i = slot(name, mask); names[i] != null; i = (i + 1) & mask) {
+      if (names[i].equals(name)) {
+        return amounts[i];
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Sets the number of shares of a company, {@literal 0} removes the company.
+   *
+   * @param name   the name of the company
+   * @param amount the number of shares
+   */
+  void put(String name, int amount) {
+    if (amount == 0) {
+      remove(name);
+      return;
+    }
+    int mask = names.length - 1;
+    int i = slot(name, mask);
+    for (; names[i] != null; i = (i + 1) & mask) {
+      if (names[i].equals(name)) {
+        amounts[i] = amount;
+        return;
+      }
+    }
+    names[i] = name;
+    amounts[i] = amount;
+    // Keep the table half empty, so the probe sequences stay short
+    if (++size * 2 > names.length) {
+      resize(names.length * 2);
+    }
+  }
+
+  private void remove(String name) {
+    int mask = names.length - 1;
+    int i = slot(name, mask);
+    while (names[i] != null && !names[i].equals(name)) {
+      i = (i + 1) & mask;
+    }
+    if (names[i] == null) {
+      return;
+    }
+
+    // Shift back the following entries of the probe sequence instead of leaving a tombstone
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (names[j] == null) {
+        break;
+      }
+      int home = slot(names[j], mask);
+      // Move the entry if its home slot is not between the hole and its current slot (cyclically)
+      if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+        names[i] = names[j];
+        amounts[i] = amounts[j];
+        i = j;
+      }
+    }
+    names[i] = null;
+    amounts[i] = 0;
+    size--;
+  }
+
+  /**
+   * Removes all the companies.
+   */
+  void clear() {
+    Arrays.fill(names, null);
+    Arrays.fill(amounts, 0);
+    size = 0;
+  }
+
+  /**
+   * @return the number of companies
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Calls the consumer with each company and its number of shares, in no particular order. The positions must not be
+   * modified by the consumer.
+   *
+   * @param consumer the consumer
+   */
+  void forEach(ObjIntConsumer<String> consumer) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] != null) {
+        consumer.accept(names[i], amounts[i]);
+      }
+    }
+  }
+
+  private void resize(int capacity) {
+    String[] oldNames = names;
+    int[] oldAmounts = amounts;
+    names = new String[capacity];
+    amounts = new int[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] != null) {
+        int j = slot(oldNames[i], mask);
+        while (names[j] != null) {
+          j = (j + 1) & mask;
+        }
+        names[j] = oldNames[i];
+        amounts[j] = oldAmounts[i];
+      }
+    }
+  }
+
+  /**
+   * The hash code of the strings is cached, it is spread so the similar names do not collide in the low bits.
+   */
+  private static int slot(String name, int mask) {
+    int h = name.hashCode() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
@@ -0,0 +1,58 @@
+package io.vertx.workshop.portfolio.impl;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A consistent hash ring assigning the accounts to the shards. Each shard is placed at several points of the ring
+ * (virtual nodes), and an account belongs to the first shard following its hash. Adding a shard only moves the
+ * accounts it takes over, instead of most of them with a modulo.
+ */
+class ConsistentHash {
+
+  private static final int VIRTUAL_NODES = 64;
+
+  private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+
+  /**
+   * Creates a new instance of {@link ConsistentHash}.
+   *
+   * @param shards the number of shards
+   */
+  ConsistentHash(int shards) {
+    if (shards <= 0) {
+      throw new IllegalArgumentException("The number of shards must be greater than 0");
+    }
+    for (int shard = 0; shard < shards; shard++) {
+      for (int node = 0; node < VIRTUAL_NODES; node++) {
+        ring.put(hash("shard-" + shard + "-" + node), shard);
+      }
+    }
+  }
+
+  /**
+   * @param account the account
+   * @return the shard managing the account
+   */
+  int shard(String account) {
+    Map.Entry<Integer, Integer> entry = ring.ceilingEntry(hash(account));
+    return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+  }
+
+  /**
+   * FNV-1a, followed by the finalizer of MurmurHash3 to spread the close keys.
+   */
+  static int hash(String key) {
+    int h = 0x811c9dc5;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h *= 0x01000193;
+    }
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+}
@@ -0,0 +1,498 @@
+package io.vertx.workshop.portfolio.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.portfolio.Portfolio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the portfolios of a shard: each trade is appended to a journal, and a snapshot of all the portfolios is
+ * written every `snapshot` trades. The recovery loads the last snapshot, and replays the trades appended after it.
+ * <p>
+ * A journal record contains the changes of a trade, identified by a sequence number, so the records already included
+ * in the snapshot are skipped:
+ * <pre>
+ * length (int) | crc32 (int) | sequence (long) | account (short length, UTF-8) | company (short length, UTF-8) |
+ * shares (int) | cash (long, ticks)
+ * </pre>
+ * The journal files are named `journal-&lt;first sequence&gt;.log`, a new one is started on recovery and after each
+ * snapshot, and the files covered by a snapshot are deleted. The records are checked with their CRC, so the recovery
+ * stops at a record torn by a crash.
+ * <p>
+ * The trades are group-committed: while a batch of records is being written (and synced to the disk if `sync` is
+ * set), the next trades are queued, and written together by the next batch (of at most `batch` records). The callers
+ * are notified once their record is written. The writes are done with `executeBlocking`, so the event loop is not
+ * blocked. Instances must be used from a single context.
+ * <p>
+ * The trades are applied to the portfolios by the caller before being appended. If their record cannot be written, they
+ * are reverted before notifying the caller, and the journal file is truncated to its size before the failed batch, so
+ * neither a partial record nor a complete record of a reverted trade is kept (the next records would not be replayed
+ * after a partial one). If the file cannot be truncated, the journal is closed and the next trades are rejected. The
+ * snapshots never include the trades not written yet, so the portfolios, the files and the callers agree.
+ * <p>
+ * As a trade may be reverted until it is written, the cash and shares it credits must not be spent meanwhile: the
+ * caller checks the new trades against the committed state, excluding the {@link #pendingCash(String)} and
+ * {@link #pendingShares(String, String)} (the trades it debits are already excluded, reverting them only credits).
+ */
+public class PortfolioJournal {
+
+  private final Vertx vertx;
+  private final File directory;
+  private final long initialCash;
+  private final boolean sync;
+  private final int batch;
+  private final int snapshotEvery;
+
+  private final Map<String, Portfolio> portfolios = new HashMap<>();
+
+  private final List<Trade> pending = new ArrayList<>();
+  // The cash and shares credited by the trades not written yet (pending or being written), per account
+  private final Map<String, Credit> credits = new HashMap<>();
+  private boolean writing;
+  private long batches;
+
+  private FileChannel channel;
+  private long sequence;
+  private long sinceSnapshot;
+  // Set when the journal file could not be repaired after a failed write, the next trades are rejected
+  private Throwable failure;
+
+  /**
+   * Creates a new instance of {@link PortfolioJournal}, {@link #recover()} must be called before using it.
+   *
+   * @param vertx         the Vert.x instance
+   * @param directory     the directory of the journal and snapshots
+   * @param initialCash   the initial amount of money of the accounts, in ticks
+   * @param sync          whether the records are synced to the disk before notifying the callers
+   * @param batch         the maximum number of records written (and synced) at once
+   * @param snapshotEvery the number of trades between two snapshots
+   */
+  public PortfolioJournal(Vertx vertx, File directory, long initialCash, boolean sync, int batch, int snapshotEvery) {
+    this.vertx = vertx;
+    this.directory = directory;
+    this.initialCash = initialCash;
+    this.sync = sync;
+    this.batch = batch;
+    this.snapshotEvery = snapshotEvery;
+  }
+
+  /**
+   * @return the recovered portfolios, the map is then updated by the portfolio service
+   */
+  Map<String, Portfolio> portfolios() {
+    return portfolios;
+  }
+
+  /**
+   * Loads the last snapshot and replays the journal. This method is blocking.
+   *
+   * @throws IOException if the snapshot or journal cannot be read, or the new journal file cannot be created
+   */
+  public void recover() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create the directory " + directory.getAbsolutePath());
+    }
+
+    File snapshot = new File(directory, "snapshot.json");
+    if (snapshot.isFile()) {
+      JsonObject json = new JsonObject(new String(Files.readAllBytes(snapshot.toPath()), StandardCharsets.UTF_8));
+      sequence = json.getLong("sequence");
+      JsonObject accounts = json.getJsonObject("accounts");
+      for (String account : accounts.fieldNames()) {
+        JsonObject state = accounts.getJsonObject(account);
+        Portfolio portfolio = new Portfolio().cashInTicks(state.getLong("cash"));
+        JsonObject shares = state.getJsonObject("shares");
+        for (String company : shares.fieldNames()) {
+          portfolio.setAmount(company, shares.getInteger(company));
+        }
+        portfolios.put(account, portfolio);
+      }
+    }
+
+    for (File file : journals()) {
+      replay(file);
+    }
+    open(sequence);
+  }
+
+  private File[] journals() {
+    File[] files = directory.listFiles((dir, name) -> name.startsWith("journal-") && name.endsWith(".log"));
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files);
+    return files;
+  }
+
+  private void replay(File file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    CRC32 crc = new CRC32();
+    while (buffer.remaining() >= 8) {
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length <= 0 || length > buffer.remaining()) {
+        // Torn record
+        return;
+      }
+      crc.reset();
+      crc.update(buffer.array(), buffer.position(), length);
+      if ((int) crc.getValue() != checksum) {
+        return;
+      }
+
+      long seq = buffer.getLong();
+      String account = string(buffer);
+      String company = string(buffer);
+      int shares = buffer.getInt();
+      long cash = buffer.getLong();
+      if (seq > sequence) {
+        apply(account, company, shares, cash);
+        sequence = seq;
+      }
+    }
+  }
+
+  private static String string(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getShort()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void apply(String account, String company, int shares, long cash) {
+    Portfolio portfolio = portfolios.computeIfAbsent(account, a -> new Portfolio().cashInTicks(initialCash));
+    portfolio.cashInTicks(portfolio.cashInTicks() + cash);
+    portfolio.setAmount(company, portfolio.getAmount(company) + shares);
+  }
+
+  /**
+   * Starts a new journal file. This method is blocking.
+   *
+   * @param last the sequence number of the last trade before the new file
+   */
+  private void open(long last) throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+    File file = new File(directory, String.format("journal-%019d.log", last + 1));
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Appends a trade, already applied to the portfolios.
+   *
+   * @param account the account
+   * @param company the company
+   * @param shares  the number of shares bought (positive) or sold (negative)
+   * @param cash    the change of cash, in ticks
+   * @param done    called when the record has been written, or when it failed (the trade is then reverted)
+   */
+  void append(String account, String company, int shares, long cash, Handler<AsyncResult<Void>> done) {
+    byte[] a = account.getBytes(StandardCharsets.UTF_8);
+    byte[] c = company.getBytes(StandardCharsets.UTF_8);
+    long seq = ++sequence;
+    Buffer record = Buffer.buffer(8 + 8 + 2 + a.length + 2 + c.length + 4 + 8)
+        .appendInt(0)
+        .appendInt(0)
+        .appendLong(seq)
+        .appendShort((short) a.length).appendBytes(a)
+        .appendShort((short) c.length).appendBytes(c)
+        .appendInt(shares)
+        .appendLong(cash);
+    CRC32 crc = new CRC32();
+    crc.update(record.getBytes(8, record.length()));
+    record.setInt(0, record.length() - 8).setInt(4, (int) crc.getValue());
+
+    Trade trade = new Trade(seq, account, company, shares, cash, record, done);
+    credit(trade, 1);
+    pending.add(trade);
+    sinceSnapshot++;
+    write();
+  }
+
+  /**
+   * Writes the pending records, unless a write is in progress: they are written when it completes.
+   */
+  private void write() {
+    if (writing || pending.isEmpty()) {
+      return;
+    }
+    if (failure != null) {
+      List<Trade> trades = new ArrayList<>(pending);
+      pending.clear();
+      revert(trades, Future.failedFuture(failure));
+      return;
+    }
+    writing = true;
+
+    int count = Math.min(batch, pending.size());
+    List<Trade> trades = new ArrayList<>(pending.subList(0, count));
+    pending.subList(0, count).clear();
+
+    boolean[] broken = new boolean[1];
+    vertx.<Void>executeBlocking(future -> {
+      long size = -1;
+      try {
+        size = channel.size();
+        ByteBuffer[] buffers = new ByteBuffer[trades.size()];
+        for (int i = 0; i < buffers.length; i++) {
+          buffers[i] = trades.get(i).record.getByteBuf().nioBuffer();
+        }
+        flush(buffers);
+        future.complete();
+      } catch (IOException e) {
+        // Remove what has been written of the batch, its trades are reverted
+        try {
+          if (size < 0) {
+            throw new IOException("The size of the journal is unknown");
+          }
+          channel.truncate(size);
+          if (sync) {
+            channel.force(false);
+          }
+        } catch (IOException t) {
+          e.addSuppressed(t);
+          broken[0] = true;
+          closeQuietly();
+        }
+        future.fail(e);
+      }
+    }, ar -> {
+      batches++;
+      if (broken[0]) {
+        failure = ar.cause();
+      }
+      if (ar.failed()) {
+        revert(trades, ar);
+      } else {
+        for (Trade trade : trades) {
+          credit(trade, -1);
+          trade.done.handle(ar);
+        }
+      }
+      writing = false;
+      if (failure == null && sinceSnapshot >= snapshotEvery) {
+        snapshot();
+      } else {
+        write();
+      }
+    });
+  }
+
+  /**
+   * Writes the records of a batch to the journal file, and syncs them to the disk if `sync` is set. This method is
+   * blocking.
+   *
+   * @param buffers the records
+   * @throws IOException if the records cannot be written, some of them may have been written
+   */
+  void flush(ByteBuffer[] buffers) throws IOException {
+    long remaining = 0;
+    for (ByteBuffer buffer : buffers) {
+      remaining += buffer.remaining();
+    }
+    while (remaining > 0) {
+      remaining -= channel.write(buffers);
+    }
+    if (sync) {
+      channel.force(false);
+    }
+  }
+
+  private void revert(List<Trade> trades, AsyncResult<Void> failure) {
+    for (Trade trade : trades) {
+      credit(trade, -1);
+      apply(trade.account, trade.company, -trade.shares, -trade.cash);
+      trade.done.handle(failure);
+    }
+  }
+
+  /**
+   * Adds (sign 1) or removes (sign -1) the credits of a trade.
+   */
+  private void credit(Trade trade, int sign) {
+    if (trade.cash <= 0 && trade.shares <= 0) {
+      return;
+    }
+    Credit credit = credits.computeIfAbsent(trade.account, a -> new Credit());
+    if (trade.cash > 0) {
+      credit.cash += sign * trade.cash;
+    }
+    if (trade.shares > 0) {
+      int shares = credit.shares.getOrDefault(trade.company, 0) + sign * trade.shares;
+      if (shares == 0) {
+        credit.shares.remove(trade.company);
+      } else {
+        credit.shares.put(trade.company, shares);
+      }
+    }
+    if (credit.cash == 0 && credit.shares.isEmpty()) {
+      credits.remove(trade.account);
+    }
+  }
+
+  /**
+   * @param account the account
+   * @return the cash credited to the account by the trades not written yet, in ticks
+   */
+  long pendingCash(String account) {
+    Credit credit = credits.get(account);
+    return credit == null ? 0 : credit.cash;
+  }
+
+  /**
+   * @param account the account
+   * @param company the company
+   * @return the shares of the company credited to the account by the trades not written yet
+   */
+  int pendingShares(String account, String company) {
+    Credit credit = credits.get(account);
+    return credit == null ? 0 : credit.shares.getOrDefault(company, 0);
+  }
+
+  private void closeQuietly() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Already failed
+    }
+  }
+
+  /**
+   * Writes a snapshot of the portfolios, then starts a new journal file and deletes the previous ones. The snapshot
+   * excludes the pending trades (not written yet): their records are written in the new file.
+   */
+  private void snapshot() {
+    writing = true;
+    sinceSnapshot = 0;
+
+    // Captured on the context, as the portfolios are modified on it
+    long seq = pending.isEmpty() ? sequence : pending.get(0).sequence - 1;
+    Map<String, Portfolio> state = new HashMap<>();
+    portfolios.forEach((account, portfolio) -> state.put(account, new Portfolio(portfolio)));
+    for (Trade trade : pending) {
+      Portfolio portfolio = state.get(trade.account);
+      portfolio.cashInTicks(portfolio.cashInTicks() - trade.cash);
+      portfolio.setAmount(trade.company, portfolio.getAmount(trade.company) - trade.shares);
+    }
+    JsonObject accounts = new JsonObject();
+    state.forEach((account, portfolio) -> {
+      JsonObject shares = new JsonObject();
+      portfolio.forEachShare((company, amount) -> shares.put(company, amount));
+      accounts.put(account, new JsonObject().put("cash", portfolio.cashInTicks()).put("shares", shares));
+    });
+    byte[] content = new JsonObject().put("sequence", seq).put("accounts", accounts).encode()
+        .getBytes(StandardCharsets.UTF_8);
+
+    vertx.<Void>executeBlocking(future -> {
+      try {
+        File tmp = new File(directory, "snapshot.tmp");
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+          out.write(ByteBuffer.wrap(content));
+          out.force(true);
+        }
+        Files.move(tmp.toPath(), new File(directory, "snapshot.json").toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        File[] previous = journals();
+        open(seq);
+        for (File file : previous) {
+          Files.delete(file.toPath());
+        }
+        future.complete();
+      } catch (IOException e) {
+        future.fail(e);
+      }
+    }, ar -> {
+      if (ar.failed()) {
+        // The journal is kept, the next snapshot will be retried later
+        System.err.println("Cannot write the portfolio snapshot: " + ar.cause().getMessage());
+      }
+      writing = false;
+      write();
+    });
+  }
+
+  /**
+   * Closes the journal file. The pending records are not written.
+   *
+   * @param done called when closed
+   */
+  public void close(Handler<AsyncResult<Void>> done) {
+    vertx.<Void>executeBlocking(future -> {
+      try {
+        if (channel != null) {
+          channel.close();
+        }
+        future.complete();
+      } catch (IOException e) {
+        future.fail(e);
+      }
+    }, done);
+  }
+
+  /**
+   * @return the sequence number of the last appended trade
+   */
+  long sequence() {
+    return sequence;
+  }
+
+  /**
+   * @return the number of batches written (and synced) so far
+   */
+  long batches() {
+    return batches;
+  }
+
+  /**
+   * The cash and shares credited to an account by the trades not written yet.
+   */
+  private static class Credit {
+    private long cash;
+    private final Map<String, Integer> shares = new HashMap<>();
+  }
+
+  /**
+   * A trade appended to the journal, not written yet.
+   */
+  private static class Trade {
+    private final long sequence;
+    private final String account;
+    private final String company;
+    private final int shares;
+    private final long cash;
+    private final Buffer record;
+    private final Handler<AsyncResult<Void>> done;
+
+    private Trade(long sequence, String account, String company, int shares, long cash, Buffer record,
+                  Handler<AsyncResult<Void>> done) {
+      this.sequence = sequence;
+      this.account = account;
+      this.company = company;
+      this.shares = shares;
+      this.cash = cash;
+      this.record = record;
+      this.done = done;
+    }
+  }
+}
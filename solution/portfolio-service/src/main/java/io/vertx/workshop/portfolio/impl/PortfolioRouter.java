@@ -0,0 +1,83 @@
+package io.vertx.workshop.portfolio.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Routes the calls received on the portfolio service address to the shard managing their account. The messages (sent
+ * by the generated proxies) are forwarded as they are, with their headers, and the replies (or failures) are sent back
+ * to the caller, so they are not decoded by the router.
+ */
+class PortfolioRouter {
+
+  private final Vertx vertx;
+  private final ConsistentHash ring;
+  private final String[] addresses;
+
+  private MessageConsumer<JsonObject> consumer;
+
+  /**
+   * Creates a new instance of {@link PortfolioRouter}.
+   *
+   * @param vertx  the Vert.x instance
+   * @param shards the number of shards
+   */
+  PortfolioRouter(Vertx vertx, int shards) {
+    this.vertx = vertx;
+    this.ring = new ConsistentHash(shards);
+    this.addresses = new String[shards];
+    for (int i = 0; i < shards; i++) {
+      addresses[i] = PortfolioShardVerticle.address(i);
+    }
+  }
+
+  /**
+   * Starts routing the messages sent to the given address.
+   *
+   * @param address the address of the service
+   */
+  void listen(String address) {
+    consumer = vertx.eventBus().consumer(address, this::route);
+  }
+
+  /**
+   * Stops routing the messages.
+   */
+  void close() {
+    if (consumer != null) {
+      consumer.unregister();
+    }
+  }
+
+  /**
+   * @param account the account
+   * @return the address of the shard managing the account
+   */
+  String address(String account) {
+    return addresses[ring.shard(account)];
+  }
+
+  private void route(Message<JsonObject> message) {
+    String account = message.body() == null ? null : message.body().getString("account");
+    if (account == null) {
+      message.fail(-1, "The account is required");
+      return;
+    }
+
+    vertx.eventBus().<Object>send(address(account), message.body(),
+        new DeliveryOptions().setHeaders(message.headers()), reply -> {
+          if (reply.succeeded()) {
+            message.reply(reply.result().body());
+          } else if (reply.cause() instanceof ReplyException) {
+            ReplyException failure = (ReplyException) reply.cause();
+            message.fail(failure.failureCode(), failure.getMessage());
+          } else {
+            message.fail(-1, reply.cause().getMessage());
+          }
+        });
+  }
+}
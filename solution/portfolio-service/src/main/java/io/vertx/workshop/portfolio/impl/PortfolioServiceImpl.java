@@ -1,45 +1,83 @@
 package io.vertx.workshop.portfolio.impl;
 
 import io.vertx.core.*;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.codec.BodyCodec;
-import io.vertx.servicediscovery.ServiceDiscovery;
-import io.vertx.servicediscovery.types.HttpEndpoint;
+import io.vertx.workshop.common.Prices;
+import io.vertx.workshop.common.ServiceClientCache;
 import io.vertx.workshop.portfolio.Portfolio;
 import io.vertx.workshop.portfolio.PortfolioService;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
- * The portfolio service implementation.
+ * The portfolio service implementation, managing the accounts of a shard. The portfolio of an account is created with
+ * the initial amount of money on first use. When a {@link PortfolioJournal} is given, the trades are persisted, and
+ * the caller is notified once the trade has been written.
+ * <p>
+ * Instances must be used from a single context.
  */
 public class PortfolioServiceImpl implements PortfolioService {
 
   private final Vertx vertx;
-  private final Portfolio portfolio;
-  private final ServiceDiscovery discovery;
-
-  public PortfolioServiceImpl(Vertx vertx, ServiceDiscovery discovery, double initialCash) {
+  private final Map<String, Portfolio> portfolios;
+  private final long initialCash;
+  private final ServiceClientCache clients;
+  private final QuoteCache cache;
+  private final long staleness;
+  private final PortfolioJournal journal;
+
+  /**
+   * Creates a new instance of {@link PortfolioServiceImpl} evaluating the portfolio with the prices of the cache when
+   * they are fresh enough, and calling the `quotes` service for the other companies.
+   *
+   * @param vertx       the Vert.x instance
+   * @param clients     the clients retrieved from the discovery
+   * @param initialCash the initial amount of money
+   * @param cache       the cache of the prices
+   * @param staleness   the maximum age of the cached prices in ms
+   * @param journal     the journal persisting the trades, recovered, {@code null} to keep the portfolios in memory
+   */
+  public PortfolioServiceImpl(Vertx vertx, ServiceClientCache clients, double initialCash, QuoteCache cache,
+                              long staleness, PortfolioJournal journal) {
     this.vertx = vertx;
-    this.portfolio = new Portfolio().setCash(initialCash);
-    this.discovery = discovery;
+    this.journal = journal;
+    this.portfolios = journal == null ? new HashMap<>() : journal.portfolios();
+    this.initialCash = Prices.toTicks(initialCash);
+    this.clients = clients;
+    this.cache = cache;
+    this.staleness = staleness;
+  }
+
+  /**
+   * @param account the account
+   * @return the portfolio of the account, created if needed
+   */
+  private Portfolio portfolio(String account) {
+    Portfolio portfolio = portfolios.get(account);
+    if (portfolio == null) {
+      portfolio = new Portfolio().cashInTicks(initialCash);
+      portfolios.put(account, portfolio);
+    }
+    return portfolio;
   }
 
   @Override
-  public void getPortfolio(Handler<AsyncResult<Portfolio>> resultHandler) {
+  public void getPortfolio(String account, Handler<AsyncResult<Portfolio>> resultHandler) {
     // ----
-    resultHandler.handle(Future.succeededFuture(portfolio));
+    resultHandler.handle(Future.succeededFuture(portfolio(account)));
     // ----
   }
 
-  private void sendActionOnTheEventBus(String action, int amount, JsonObject quote, int newAmount) {
+  private void sendActionOnTheEventBus(String account, String action, int amount, JsonObject quote, int newAmount) {
     // ----
     vertx.eventBus().publish(EVENT_ADDRESS, new JsonObject()
+        .put("account", account)
         .put("action", action)
         .put("quote", quote)
         .put("date", System.currentTimeMillis())
@@ -50,10 +88,28 @@ public class PortfolioServiceImpl implements PortfolioService {
   }
 
   @Override
-  public void evaluate(Handler<AsyncResult<Double>> resultHandler) {
+  public void evaluate(String account, Handler<AsyncResult<Double>> resultHandler) {
+    Portfolio portfolio = portfolio(account);
+    // The companies with a fresh price in the cache are evaluated locally
+    long[] sum = new long[1];
+    List<String> missing = new ArrayList<>();
+    portfolio.forEachShare((name, amount) -> {
+      long bid = cache.bid(name, staleness);
+      if (bid == QuoteCache.MISSING) {
+        missing.add(name);
+      } else {
+        sum[0] += amount * bid;
+      }
+    });
+    if (missing.isEmpty()) {
+      resultHandler.handle(Future.succeededFuture(Prices.toDouble(sum[0])));
+      return;
+    }
+
     // ----
-    // First we need to discover and get a HTTP client for the `quotes` service:
-    HttpEndpoint.getWebClient(discovery, new JsonObject().put("name", "quotes"),
+    // First we need to discover and get a HTTP client for the `quotes` service (reused by the next calls):
+    long cached = sum[0];
+    clients.getWebClient(new JsonObject().put("name", "quotes"),
         client -> {
           if (client.failed()) {
             // It failed...
@@ -61,56 +117,45 @@ public class PortfolioServiceImpl implements PortfolioService {
           } else {
             // We have the client
             WebClient webClient = client.result();
-            computeEvaluation(webClient, resultHandler);
+            computeEvaluation(webClient, portfolio, missing, cached, resultHandler);
           }
         });
 
     // ---
   }
 
-  private void computeEvaluation(WebClient webClient, Handler<AsyncResult<Double>> resultHandler) {
-    // We need to call the service for each company we own shares
-    List<Future> results = portfolio.getShares().entrySet().stream()
-        .map(entry -> getValueForCompany(webClient, entry.getKey(), entry.getValue()))
-        .collect(Collectors.toList());
-
-    // We need to return only when we have all results, for this we create a composite future. The set handler
-    // is called when all the futures has been assigned.
-    CompositeFuture.all(results).setHandler(
-        ar -> {
-          double sum = results.stream().mapToDouble(fut -> (double) fut.result()).sum();
-          resultHandler.handle(Future.succeededFuture(sum));
-        });
-  }
-
-  private Future<Double> getValueForCompany(WebClient client, String company, int numberOfShares) {
-    // Create the future object that will  get the value once the value have been retrieved
-    Future<Double> future = Future.future();
+  private void computeEvaluation(WebClient webClient, Portfolio portfolio, List<String> names, long cached,
+                                 Handler<AsyncResult<Double>> resultHandler) {
+    // We retrieve the quotes of all the other companies we own shares in a single request
 
     //----
-    client.get("/?name=" + encode(company))
+    webClient.post("/")
         .as(BodyCodec.jsonObject())
-        .send(ar -> {
-      if (ar.succeeded()) {
-        HttpResponse<JsonObject> response = ar.result();
-        if (response.statusCode() == 200) {
-          double v = numberOfShares * response.body().toJsonObject().getDouble("bid");
-          future.complete(v);
-        } else {
-          future.complete(0.0);
-        }
-      } else {
-        future.fail(ar.cause());
-      }
-    });
+        .sendJson(new JsonArray(names), ar -> {
+          if (ar.failed()) {
+            resultHandler.handle(Future.failedFuture(ar.cause()));
+          } else if (ar.result().statusCode() != 200) {
+            resultHandler.handle(Future.failedFuture("Cannot retrieve the quotes: " + ar.result().statusCode()));
+          } else {
+            // The unknown companies are not returned, they are not evaluated
+            JsonObject quotes = ar.result().body();
+            long sum = cached;
+            for (String name : names) {
+              JsonObject quote = quotes.getJsonObject(name);
+              int amount = portfolio.getAmount(name);
+              if (quote != null) {
+                sum += amount * Prices.toTicks(quote.getDouble("bid"));
+              }
+            }
+            resultHandler.handle(Future.succeededFuture(Prices.toDouble(sum)));
+          }
+        });
     // ---
-
-    return future;
   }
 
 
   @Override
-  public void buy(int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
+  public void buy(String account, int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
     if (amount <= 0) {
       resultHandler.handle(Future.failedFuture("Cannot buy " + quote.getString("name") + " - the amount must be " +
           "greater than 0"));
@@ -121,46 +166,50 @@ public class PortfolioServiceImpl implements PortfolioService {
           "stocks on the market (" + quote.getInteger("shares") + ")"));
     }
 
-    double price = amount * quote.getDouble("ask");
+    Portfolio portfolio = portfolio(account);
+    // The amounts of money are computed in ticks to avoid rounding errors
+    long price = amount * Prices.toTicks(quote.getDouble("ask"));
     String name = quote.getString("name");
-    // 1) do we have enough money
-    if (portfolio.getCash() >= price) {
+    // 1) do we have enough money (not counting the sales not persisted yet, they may be reverted)
+    long cash = portfolio.cashInTicks() - (journal == null ? 0 : journal.pendingCash(account));
+    if (cash >= price) {
       // Yes, buy it
-      portfolio.setCash(portfolio.getCash() - price);
+      portfolio.cashInTicks(portfolio.cashInTicks() - price);
       int current = portfolio.getAmount(name);
       int newAmount = current + amount;
-      portfolio.getShares().put(name, newAmount);
-      sendActionOnTheEventBus("BUY", amount, quote, newAmount);
-      resultHandler.handle(Future.succeededFuture(portfolio));
+      portfolio.setAmount(name, newAmount);
+      commit(account, name, amount, -price, () -> {
+        sendActionOnTheEventBus(account, "BUY", amount, quote, newAmount);
+        resultHandler.handle(Future.succeededFuture(portfolio));
+      }, resultHandler);
     } else {
       resultHandler.handle(Future.failedFuture("Cannot buy " + amount + " of " + name + " - " + "not enough money, " +
-          "need " + price + ", has " + portfolio.getCash()));
+          "need " + Prices.toDouble(price) + ", has " + Prices.toDouble(cash)));
     }
   }
 
 
   @Override
-  public void sell(int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
+  public void sell(String account, int amount, JsonObject quote, Handler<AsyncResult<Portfolio>> resultHandler) {
     if (amount <= 0) {
       resultHandler.handle(Future.failedFuture("Cannot sell " + quote.getString("name") + " - the amount must be " +
           "greater than 0"));
     }
 
-    double price = amount * quote.getDouble("bid");
+    Portfolio portfolio = portfolio(account);
+    long price = amount * Prices.toTicks(quote.getDouble("bid"));
     String name = quote.getString("name");
     int current = portfolio.getAmount(name);
-    // 1) do we have enough stocks
-    if (current >= amount) {
+    // 1) do we have enough stocks (not counting the purchases not persisted yet, they may be reverted)
+    if (current - (journal == null ? 0 : journal.pendingShares(account, name)) >= amount) {
       // Yes, sell it
       int newAmount = current - amount;
-      if (newAmount == 0) {
-        portfolio.getShares().remove(name);
-      } else {
-        portfolio.getShares().put(name, newAmount);
-      }
-      portfolio.setCash(portfolio.getCash() + price);
-      sendActionOnTheEventBus("SELL", amount, quote, newAmount);
-      resultHandler.handle(Future.succeededFuture(portfolio));
+      portfolio.setAmount(name, newAmount);
+      portfolio.cashInTicks(portfolio.cashInTicks() + price);
+      commit(account, name, -amount, price, () -> {
+        sendActionOnTheEventBus(account, "SELL", amount, quote, newAmount);
+        resultHandler.handle(Future.succeededFuture(portfolio));
+      }, resultHandler);
     } else {
       resultHandler.handle(Future.failedFuture("Cannot sell " + amount + " of " + name + " - " + "not enough stocks " +
           "in portfolio"));
@@ -168,13 +217,24 @@ public class PortfolioServiceImpl implements PortfolioService {
 
   }
 
-  private static String encode(String value) {
-    try {
-      return URLEncoder.encode(value, "UTF-8");
-    } catch (UnsupportedEncodingException e) {
-      throw new RuntimeException("Unsupported encoding");
+  /**
+   * Persists a trade (already applied to the portfolio) in the journal, if any, and calls `done` once written. If it
+   * cannot be written, the journal reverts the trade, and the caller is notified of the failure.
+   */
+  private void commit(String account, String name, int shares, long cash, Runnable done,
+                      Handler<AsyncResult<Portfolio>> resultHandler) {
+    if (journal == null) {
+      done.run();
+      return;
     }
+    journal.append(account, name, shares, cash, ar -> {
+      if (ar.failed()) {
+        resultHandler.handle(Future.failedFuture("Cannot persist the trade of " + name + " - " +
+            ar.cause().getMessage()));
+      } else {
+        done.run();
+      }
+    });
   }
 
-
 }
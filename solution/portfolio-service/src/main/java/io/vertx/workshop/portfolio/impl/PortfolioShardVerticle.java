@@ -0,0 +1,112 @@
+package io.vertx.workshop.portfolio.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.MicroServiceVerticle;
+import io.vertx.workshop.common.Prices;
+import io.vertx.workshop.portfolio.PortfolioService;
+import io.vertx.workshop.portfolio.PortfolioServiceVertxProxyHandler;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A verticle managing a shard of the accounts. Each shard runs on its own event loop, and registers the portfolio
+ * service on its own address, called by the {@link PortfolioRouter}. The shards are registered locally (not in the
+ * cluster): otherwise, the calls for an account would be spread across the shards of the same index of several nodes.
+ * <p>
+ * When `persistence.directory` is set, the portfolios of the shard are persisted in its `shard-&lt;index&gt;`
+ * sub-directory, and recovered before registering the service.
+ */
+public class PortfolioShardVerticle extends MicroServiceVerticle {
+
+  private QuoteCache cache;
+  private PortfolioJournal journal;
+  private PortfolioServiceVertxProxyHandler service;
+
+  /**
+   * @param shard the index of the shard
+   * @return the address of the shard
+   */
+  static String address(int shard) {
+    return PortfolioService.ADDRESS + "." + shard;
+  }
+
+  @Override
+  public void start(Future<Void> future) {
+    super.start();
+
+    // Keep the last prices, so the evaluation does not call the quotes service for each company
+    cache = new QuoteCache();
+    cache.listen(vertx, discovery);
+
+    int shard = config().getInteger("shard");
+    double money = config().getDouble("money", 10000.00);
+    recover(shard, money, ar -> {
+      if (ar.failed()) {
+        future.fail(ar.cause());
+        return;
+      }
+
+      // Create the service object
+      PortfolioServiceImpl impl = new PortfolioServiceImpl(vertx, clients, money, cache,
+          config().getLong("quotes.staleness", 10000L), journal);
+
+      // Register the service proxy on the local event bus (ProxyHelper only registers clustered consumers)
+      service = new PortfolioServiceVertxProxyHandler(vertx, impl);
+      service.setConsumer(vertx.eventBus().<JsonObject>localConsumer(address(shard)).handler(service));
+      future.complete();
+    });
+  }
+
+  /**
+   * Recovers the portfolios of the shard from its journal, if the persistence is enabled.
+   */
+  private void recover(int shard, double money, Handler<AsyncResult<Void>> done) {
+    String directory = config().getString("persistence.directory");
+    if (directory == null) {
+      done.handle(Future.succeededFuture());
+      return;
+    }
+
+    PortfolioJournal recovered = new PortfolioJournal(vertx, new File(directory, "shard-" + shard),
+        Prices.toTicks(money),
+        config().getBoolean("persistence.sync", true),
+        config().getInteger("persistence.batch", 1000),
+        config().getInteger("persistence.snapshot", 10000));
+    vertx.<Void>executeBlocking(f -> {
+      try {
+        recovered.recover();
+        f.complete();
+      } catch (IOException e) {
+        f.fail(e);
+      }
+    }, ar -> {
+      if (ar.succeeded()) {
+        journal = recovered;
+      }
+      done.handle(ar);
+    });
+  }
+
+  @Override
+  public void stop(Future<Void> future) throws Exception {
+    cache.close();
+    if (service != null) {
+      service.close();
+    }
+    if (journal != null) {
+      journal.close(ar -> {
+        try {
+          super.stop(future);
+        } catch (Exception e) {
+          future.fail(e);
+        }
+      });
+    } else {
+      super.stop(future);
+    }
+  }
+}
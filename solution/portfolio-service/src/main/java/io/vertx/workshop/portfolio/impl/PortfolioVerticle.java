@@ -1,45 +1,81 @@
 package io.vertx.workshop.portfolio.impl;
 
-import io.vertx.serviceproxy.ProxyHelper;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
 import io.vertx.workshop.common.MicroServiceVerticle;
 import io.vertx.workshop.portfolio.PortfolioService;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static io.vertx.workshop.portfolio.PortfolioService.ADDRESS;
 import static io.vertx.workshop.portfolio.PortfolioService.EVENT_ADDRESS;
 
 /**
- * A verticle publishing the portfolio service.
+ * A verticle publishing the portfolio service. The accounts are partitioned across `shards` verticles (by default,
+ * one per event loop), and the calls are routed to the shard managing their account.
  */
 public class PortfolioVerticle extends MicroServiceVerticle {
 
+  private PortfolioRouter router;
+
   @Override
-  public void start() {
+  public void start(Future<Void> future) {
     super.start();
 
-    // Create the service object
-    PortfolioServiceImpl service = new PortfolioServiceImpl(vertx, discovery, config().getDouble("money", 10000.00));
-
-    // Register the service proxy on the event bus
-    ProxyHelper.registerService(PortfolioService.class, vertx, service, ADDRESS);
+    // Deploy the shards
+    int shards = config().getInteger("shards", VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE);
+    List<Future> deployments = new ArrayList<>();
+    for (int i = 0; i < shards; i++) {
+      Future<String> deployment = Future.future();
+      deployments.add(deployment);
+      JsonObject conf = config().copy().put("shard", i);
+      vertx.deployVerticle(PortfolioShardVerticle.class.getName(), new DeploymentOptions().setConfig(conf),
+          deployment);
+    }
 
-    // Publish it in the discovery infrastructure
-    publishEventBusService("portfolio", ADDRESS, PortfolioService.class, ar -> {
+    CompositeFuture.all(deployments).setHandler(ar -> {
       if (ar.failed()) {
-        ar.cause().printStackTrace();
-      } else {
-        System.out.println("Portfolio service published : " + ar.succeeded());
+        future.fail(ar.cause());
+        return;
       }
-    });
 
-    //----
-    // The portfolio event service
-    publishMessageSource("portfolio-events", EVENT_ADDRESS, ar -> {
-      if (ar.failed()) {
-        ar.cause().printStackTrace();
-      } else {
-        System.out.println("Portfolio Events service published : " + ar.succeeded());
-      }
+      // Route the calls to the shards
+      router = new PortfolioRouter(vertx, shards);
+      router.listen(ADDRESS);
+
+      // Publish it in the discovery infrastructure
+      publishEventBusService("portfolio", ADDRESS, PortfolioService.class, rec -> {
+        if (rec.failed()) {
+          rec.cause().printStackTrace();
+        } else {
+          System.out.println("Portfolio service published : " + rec.succeeded());
+        }
+      });
+
+      //----
+      // The portfolio event service
+      publishMessageSource("portfolio-events", EVENT_ADDRESS, rec -> {
+        if (rec.failed()) {
+          rec.cause().printStackTrace();
+        } else {
+          System.out.println("Portfolio Events service published : " + rec.succeeded());
+        }
+      });
+      //----
+
+      future.complete();
     });
-    //----
+  }
+
+  @Override
+  public void stop(Future<Void> future) throws Exception {
+    if (router != null) {
+      router.close();
+    }
+    super.stop(future);
   }
 }
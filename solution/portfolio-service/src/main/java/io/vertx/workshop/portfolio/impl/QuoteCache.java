@@ -0,0 +1,97 @@
+package io.vertx.workshop.portfolio.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.MessageSource;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The last bid price of each company, received from the `market-data` message source. It lets the portfolio service
+ * evaluate the portfolio without calling the `quotes` service.
+ * <p>
+ * Instances must be used from the context of the portfolio service.
+ */
+public class QuoteCache {
+
+  /**
+   * The value returned by {@link #bid(String, long)} when there is no fresh price.
+   */
+  public static final long MISSING = Long.MIN_VALUE;
+
+  private final Map<String, Entry> entries = new HashMap<>();
+  private MessageConsumer<Quote> consumer;
+  private boolean closed;
+
+  /**
+   * Subscribes to the `market-data` message source. If it is not published yet, it retries every 5 seconds.
+   *
+   * @param vertx     the Vert.x instance
+   * @param discovery the discovery
+   */
+  public void listen(Vertx vertx, ServiceDiscovery discovery) {
+    if (closed) {
+      return;
+    }
+    QuoteCodec.register(vertx);
+    MessageSource.<Quote>getConsumer(discovery, new JsonObject().put("name", "market-data"), ar -> {
+      if (ar.succeeded() && closed) {
+        ar.result().unregister();
+      } else if (ar.succeeded()) {
+        consumer = ar.result();
+        consumer.handler(message -> update(message.body()));
+      } else {
+        vertx.setTimer(5000, l -> listen(vertx, discovery));
+      }
+    });
+  }
+
+  /**
+   * Stops receiving the quotes.
+   */
+  public void close() {
+    closed = true;
+    if (consumer != null) {
+      consumer.unregister();
+    }
+  }
+
+  /**
+   * Updates the price of a company.
+   *
+   * @param quote the last quote of the company
+   */
+  void update(Quote quote) {
+    Entry entry = entries.get(quote.getName());
+    if (entry == null) {
+      entry = new Entry();
+      entries.put(quote.getName(), entry);
+    }
+    entry.bid = quote.getBidTicks();
+    entry.time = System.currentTimeMillis();
+  }
+
+  /**
+   * @param name      the name of the company
+   * @param staleness the maximum age of the price in ms
+   * @return the last bid price of the company in ticks, or {@link #MISSING} if there is no price received in the last
+   * {@code staleness} ms
+   */
+  public long bid(String name, long staleness) {
+    Entry entry = entries.get(name);
+    if (entry == null || System.currentTimeMillis() - entry.time > staleness) {
+      return MISSING;
+    }
+    return entry.bid;
+  }
+
+  private static class Entry {
+    long bid;
+    long time;
+  }
+}
@@ -0,0 +1,100 @@
+package io.vertx.workshop.portfolio;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class PortfolioTest {
+
+  @Test
+  public void testThatTheJsonRepresentationIsUnchanged() {
+    Portfolio portfolio = new Portfolio().setCash(100.5).setAmount("B", 3).setAmount("A", 10);
+    JsonObject json = portfolio.toJson();
+    assertThat(json).isEqualTo(new JsonObject().put("cash", 100.5)
+        .put("shares", new JsonObject().put("A", 10).put("B", 3)));
+
+    Portfolio copy = new Portfolio(json);
+    assertThat(copy.getCash()).isEqualTo(100.5);
+    assertThat(copy.getShares()).containsExactly(entry("A", 10), entry("B", 3));
+    assertThat(copy.toJson()).isEqualTo(json);
+  }
+
+  @Test
+  public void testThatTheCopyIsIndependent() {
+    Portfolio portfolio = new Portfolio().setAmount("A", 10);
+    Portfolio copy = new Portfolio(portfolio);
+    copy.setAmount("A", 5).setAmount("B", 1);
+    assertThat(portfolio.getAmount("A")).isEqualTo(10);
+    assertThat(portfolio.getAmount("B")).isEqualTo(0);
+    // getShares returns a copy
+    portfolio.getShares().put("C", 3);
+    assertThat(portfolio.getAmount("C")).isEqualTo(0);
+  }
+
+  @Test
+  public void testThatManyPositionsAreUpdatedAndRemoved() {
+    // Compare with a HashMap, with many collisions and removals
+    Portfolio portfolio = new Portfolio();
+    Map<String, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      String name = "company-" + random.nextInt(20_000);
+      int amount = random.nextInt(4);
+      portfolio.setAmount(name, amount);
+      if (amount == 0) {
+        expected.remove(name);
+      } else {
+        expected.put(name, amount);
+      }
+    }
+
+    assertThat(portfolio.getShares()).isEqualTo(expected);
+    for (int i = 0; i < 20_000; i++) {
+      String name = "company-" + i;
+      assertThat(portfolio.getAmount(name)).isEqualTo(expected.getOrDefault(name, 0));
+    }
+    int[] count = new int[1];
+    portfolio.forEachShare((name, amount) -> {
+      assertThat(expected.get(name)).isEqualTo(amount);
+      count[0]++;
+    });
+    assertThat(count[0]).isEqualTo(expected.size());
+  }
+
+  @Test
+  public void testThatTheUpdatesDoNotAllocate() {
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+    long thread = Thread.currentThread().getId();
+
+    int companies = 50_000;
+    String[] names = new String[companies];
+    for (int i = 0; i < companies; i++) {
+      names[i] = "company-" + i;
+    }
+    Portfolio portfolio = new Portfolio();
+    // Warm up, and create the positions
+    for (int i = 0; i < 1_000_000; i++) {
+      String name = names[i % companies];
+      portfolio.setAmount(name, portfolio.getAmount(name) + 1);
+    }
+
+    long before = bean.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < 1_000_000; i++) {
+      String name = names[i % companies];
+      portfolio.setAmount(name, portfolio.getAmount(name) + 1);
+    }
+    // The measurement itself may allocate a few bytes
+    assertThat(bean.getThreadAllocatedBytes(thread) - before).isLessThan(1024);
+    assertThat(portfolio.getAmount(names[0])).isEqualTo(40);
+  }
+}
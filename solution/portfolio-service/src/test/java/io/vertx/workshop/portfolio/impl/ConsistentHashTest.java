@@ -0,0 +1,38 @@
+package io.vertx.workshop.portfolio.impl;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsistentHashTest {
+
+  @Test
+  public void testThatTheAccountsAreSpreadAcrossTheShards() {
+    ConsistentHash ring = new ConsistentHash(4);
+    int[] counts = new int[4];
+    for (int i = 0; i < 10000; i++) {
+      counts[ring.shard("trader-" + i)]++;
+    }
+    for (int count : counts) {
+      assertThat(count).isBetween(1500, 3500);
+    }
+  }
+
+  @Test
+  public void testThatAddingAShardMovesFewAccounts() {
+    ConsistentHash before = new ConsistentHash(4);
+    ConsistentHash after = new ConsistentHash(5);
+    int moved = 0;
+    for (int i = 0; i < 10000; i++) {
+      String account = "trader-" + i;
+      int shard = after.shard(account);
+      if (before.shard(account) != shard) {
+        moved++;
+        // Only to the new shard
+        assertThat(shard).isEqualTo(4);
+      }
+    }
+    // About a fifth, instead of four fifths with a modulo
+    assertThat(moved).isBetween(1000, 3500);
+  }
+}
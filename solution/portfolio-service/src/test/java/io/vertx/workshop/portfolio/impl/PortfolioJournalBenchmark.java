@@ -0,0 +1,63 @@
+package io.vertx.workshop.portfolio.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.workshop.common.Prices;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the {@link PortfolioJournal}: the trades are appended at once, so they are written in a
+ * single batch each time the previous one completes. Not run by the build, launch it with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=io.vertx.workshop.portfolio.impl.PortfolioJournalBenchmark \
+ *   -Dexec.classpathScope=test
+ * </pre>
+ * The journal files are written in the temporary directory, set `java.io.tmpdir` to measure another disk.
+ */
+public class PortfolioJournalBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    Vertx vertx = Vertx.vertx();
+    try {
+      run(vertx, "fsync per trade", true, 1, count);
+      run(vertx, "group commit", true, 1000, count);
+      run(vertx, "no fsync", false, 1000, count);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  private static void run(Vertx vertx, String name, boolean sync, int batch, int count)
+      throws IOException, InterruptedException {
+    File directory = Files.createTempDirectory("portfolio-journal").toFile();
+    PortfolioJournal journal = new PortfolioJournal(vertx, directory, Prices.toTicks(10000), sync, batch,
+        Integer.MAX_VALUE);
+    journal.recover();
+
+    Context context = vertx.getOrCreateContext();
+    CountDownLatch latch = new CountDownLatch(count);
+    long begin = System.nanoTime();
+    context.runOnContext(v -> {
+      for (int i = 0; i < count; i++) {
+        journal.append("account-" + (i % 100), "A", 1, -10, ar -> latch.countDown());
+      }
+    });
+    if (!latch.await(5, TimeUnit.MINUTES)) {
+      throw new IllegalStateException("The trades have not been written");
+    }
+    long duration = System.nanoTime() - begin;
+    System.out.println(name + ": " + count + " trades in " + duration / 1_000_000 + " ms ("
+        + count * 1_000_000_000L / duration + " trades/s, " + journal.batches() + " writes)");
+
+    for (File file : directory.listFiles()) {
+      Files.delete(file.toPath());
+    }
+    Files.delete(directory.toPath());
+  }
+}
@@ -0,0 +1,298 @@
+package io.vertx.workshop.portfolio.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.workshop.common.Prices;
+import io.vertx.workshop.common.ServiceClientCache;
+import io.vertx.workshop.portfolio.Portfolio;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vertx.workshop.portfolio.impl.PortfolioServiceImplTest.quote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(VertxUnitRunner.class)
+public class PortfolioJournalTest {
+
+  private static final long INITIAL = Prices.toTicks(10000);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Vertx vertx;
+  private Context context;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    // The journal must be used from a single context
+    context = vertx.getOrCreateContext();
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testThatTheTradesAreRecoveredFromTheJournal(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    Async async = tc.async();
+    context.runOnContext(v -> {
+      PortfolioServiceImpl impl = service(journal(directory, 10000));
+      impl.buy("a", 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+          impl.buy("b", 5, quote("B", 10, 20, 100), tc.asyncAssertSuccess(p2 ->
+              impl.sell("a", 4, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p3 -> async.complete()))))));
+    });
+    async.awaitSuccess(10000);
+
+    Map<String, Portfolio> portfolios = journal(directory, 10000).portfolios();
+    assertThat(portfolios).hasSize(2);
+    assertThat(portfolios.get("a").getShares()).containsOnlyKeys("A").containsEntry("A", 6);
+    assertThat(portfolios.get("a").getCash()).isEqualTo(10000 - 10 * 10 + 4 * 20);
+    assertThat(portfolios.get("b").getShares()).containsOnlyKeys("B").containsEntry("B", 5);
+    assertThat(portfolios.get("b").getCash()).isEqualTo(10000 - 5 * 10);
+  }
+
+  @Test
+  public void testThatTheTradesAreRecoveredFromTheSnapshotAndTheJournal(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    Async async = tc.async();
+    context.runOnContext(v -> {
+      PortfolioServiceImpl impl = service(journal(directory, 10));
+      trade(tc, impl, 25, async);
+    });
+    async.awaitSuccess(10000);
+
+    assertThat(new File(directory, "snapshot.json")).isFile();
+    // The journal files included in the snapshots have been deleted
+    assertThat(directory.list((dir, name) -> name.endsWith(".log"))).hasSize(1);
+
+    PortfolioJournal journal = journal(directory, 10);
+    assertThat(journal.sequence()).isEqualTo(25);
+    Portfolio portfolio = journal.portfolios().get("a");
+    assertThat(portfolio.getAmount("A")).isEqualTo(12);
+    assertThat(portfolio.getAmount("B")).isEqualTo(13);
+    assertThat(portfolio.getCash()).isEqualTo(10000 - 25 * 10);
+  }
+
+  @Test
+  public void testThatATornRecordIsIgnored(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    Async async = tc.async();
+    context.runOnContext(v -> {
+      PortfolioServiceImpl impl = service(journal(directory, 10000));
+      trade(tc, impl, 3, async);
+    });
+    async.awaitSuccess(10000);
+
+    // Simulate a crash while writing the last record
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(".log") && new File(dir, name).length() > 0);
+    assertThat(files).hasSize(1);
+    try (RandomAccessFile file = new RandomAccessFile(files[0], "rw")) {
+      file.setLength(file.length() - 3);
+    }
+
+    PortfolioJournal journal = journal(directory, 10000);
+    assertThat(journal.sequence()).isEqualTo(2);
+    assertThat(journal.portfolios().get("a").getAmount("A")).isEqualTo(1);
+    assertThat(journal.portfolios().get("a").getAmount("B")).isEqualTo(1);
+  }
+
+  @Test
+  public void testThatAFailedTradeIsReverted(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    Async async = tc.async();
+    context.runOnContext(v -> {
+      PortfolioJournal journal = journal(directory, 10000);
+      PortfolioServiceImpl impl = service(journal);
+      impl.buy("a", 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+          // The next writes fail
+          journal.close(tc.asyncAssertSuccess(c ->
+              impl.buy("a", 5, quote("B", 10, 20, 100), tc.asyncAssertFailure(t ->
+                  impl.getPortfolio("a", tc.asyncAssertSuccess(portfolio -> {
+                    tc.assertEquals(10, portfolio.getAmount("A"));
+                    tc.assertEquals(0, portfolio.getAmount("B"));
+                    tc.assertEquals(10000.0 - 10 * 10, portfolio.getCash());
+                    async.complete();
+                  }))))))));
+    });
+    async.awaitSuccess(10000);
+
+    Portfolio recovered = journal(directory, 10000).portfolios().get("a");
+    assertThat(recovered.getShares()).containsOnlyKeys("A").containsEntry("A", 10);
+    assertThat(recovered.getCash()).isEqualTo(10000 - 10 * 10);
+  }
+
+  @Test
+  public void testThatAFailedBatchIsRemovedFromTheJournal(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    // The second batch is partially written, the third one is written but not synced
+    AtomicInteger batches = new AtomicInteger();
+    PortfolioJournal journal = new PortfolioJournal(vertx, directory, INITIAL, true, 1000, 10000) {
+      @Override
+      void flush(ByteBuffer[] buffers) throws IOException {
+        switch (batches.incrementAndGet()) {
+          case 2:
+            buffers[0].limit(buffers[0].limit() - 5);
+            super.flush(buffers);
+            throw new IOException("Disk full");
+          case 3:
+            super.flush(buffers);
+            throw new IOException("Cannot sync");
+          default:
+            super.flush(buffers);
+        }
+      }
+    };
+    journal.recover();
+
+    Async async = tc.async();
+    context.runOnContext(v -> {
+      PortfolioServiceImpl impl = service(journal);
+      impl.buy("a", 1, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+          impl.buy("a", 2, quote("B", 10, 20, 100), tc.asyncAssertFailure(t2 ->
+              impl.buy("a", 3, quote("C", 10, 20, 100), tc.asyncAssertFailure(t3 ->
+                  impl.buy("a", 4, quote("D", 10, 20, 100), tc.asyncAssertSuccess(p4 -> async.complete()))))))));
+    });
+    async.awaitSuccess(10000);
+
+    // The trade written after the failed ones is recovered, the failed ones are not
+    Portfolio recovered = journal(directory, 10000).portfolios().get("a");
+    assertThat(recovered.getShares()).containsOnlyKeys("A", "D").containsEntry("A", 1).containsEntry("D", 4);
+    assertThat(recovered.getCash()).isEqualTo(10000 - 10 - 4 * 10);
+  }
+
+  @Test
+  public void testThatThePendingCreditsCannotBeSpent(TestContext tc) throws IOException {
+    // The first batch is held until released
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger batches = new AtomicInteger();
+    PortfolioJournal journal = new PortfolioJournal(vertx, folder.newFolder(), INITIAL, true, 1000, 10000) {
+      @Override
+      void flush(ByteBuffer[] buffers) throws IOException {
+        if (batches.incrementAndGet() == 1) {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+        }
+        super.flush(buffers);
+      }
+    };
+    journal.recover();
+    journal.portfolios().put("a", new Portfolio().cashInTicks(INITIAL).setAmount("A", 10));
+
+    Async async = tc.async();
+    context.runOnContext(v -> {
+      PortfolioServiceImpl impl = service(journal);
+      impl.sell("a", 10, quote("A", 1000, 1000, 100), tc.asyncAssertSuccess(p ->
+          // Written, the money can be spent
+          impl.buy("a", 10, quote("B", 1500, 1500, 100), tc.asyncAssertSuccess(p2 -> {
+            tc.assertEquals(10, p2.getAmount("B"));
+            tc.assertEquals(10000.0 + 10 * 1000 - 10 * 1500 - 10, p2.getCash());
+            async.complete();
+          }))));
+      // While the sale is being written, its money cannot be spent, and the shares bought meanwhile cannot be sold
+      impl.buy("a", 10, quote("B", 1500, 1500, 100), tc.asyncAssertFailure(t1 ->
+          impl.buy("a", 1, quote("C", 10, 10, 100), tc.asyncAssertSuccess(p1 -> { }))));
+      impl.sell("a", 1, quote("C", 10, 10, 100), tc.asyncAssertFailure(t2 -> release.countDown()));
+    });
+    async.awaitSuccess(10000);
+  }
+
+  @Test
+  public void testThatTheSnapshotExcludesThePendingTrades(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    Async async = tc.async(3);
+    context.runOnContext(v -> {
+      PortfolioJournal journal = journal(directory, 1);
+      // The first trade is written alone, then the snapshot is taken while the two others are pending
+      for (int i = 0; i < 3; i++) {
+        journal.portfolios().computeIfAbsent("a", a -> new Portfolio().cashInTicks(INITIAL)).setAmount("A", i + 1);
+        journal.append("a", "A", 1, 0, tc.asyncAssertSuccess(x -> async.countDown()));
+      }
+    });
+    async.awaitSuccess(10000);
+
+    JsonObject snapshot = new JsonObject(new String(Files.readAllBytes(new File(directory, "snapshot.json").toPath()),
+        StandardCharsets.UTF_8));
+    assertThat(snapshot.getLong("sequence")).isEqualTo(1);
+    assertThat(snapshot.getJsonObject("accounts").getJsonObject("a").getJsonObject("shares").getInteger("A"))
+        .isEqualTo(1);
+
+    // The pending trades are replayed from the journal
+    PortfolioJournal journal = journal(directory, 10000);
+    assertThat(journal.sequence()).isEqualTo(3);
+    assertThat(journal.portfolios().get("a").getAmount("A")).isEqualTo(3);
+  }
+
+  @Test
+  public void testThatTheTradesAreGroupCommitted(TestContext tc) throws IOException {
+    int count = 200;
+    PortfolioJournal single = new PortfolioJournal(vertx, folder.newFolder(), INITIAL, true, 1, 100000);
+    single.recover();
+    PortfolioJournal group = new PortfolioJournal(vertx, folder.newFolder(), INITIAL, true, 1000, 100000);
+    group.recover();
+
+    Async async = tc.async(2 * count);
+    context.runOnContext(v -> {
+      for (int i = 0; i < count; i++) {
+        single.append("a", "A", 1, -10, tc.asyncAssertSuccess(x -> async.countDown()));
+        group.append("a", "A", 1, -10, tc.asyncAssertSuccess(x -> async.countDown()));
+      }
+    });
+    async.awaitSuccess(30000);
+
+    // One fsync per trade, against the first trade alone, then all the trades queued meanwhile at once
+    assertThat(single.batches()).isEqualTo(count);
+    assertThat(group.batches()).isEqualTo(2);
+  }
+
+  /**
+   * Buys one share of A or B, one trade after the other.
+   */
+  private void trade(TestContext tc, PortfolioServiceImpl impl, int remaining, Async async) {
+    if (remaining == 0) {
+      async.complete();
+      return;
+    }
+    impl.buy("a", 1, quote(remaining % 2 == 0 ? "A" : "B", 10, 20, 100),
+        tc.asyncAssertSuccess(p -> trade(tc, impl, remaining - 1, async)));
+  }
+
+  private PortfolioServiceImpl service(PortfolioJournal journal) {
+    return new PortfolioServiceImpl(vertx, new ServiceClientCache(vertx, ServiceDiscovery.create(vertx)), 10000,
+        new QuoteCache(), 0, journal);
+  }
+
+  private PortfolioJournal journal(File directory, int snapshot) {
+    PortfolioJournal journal = new PortfolioJournal(vertx, directory, INITIAL, true, 1000, snapshot);
+    try {
+      journal.recover();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return journal;
+  }
+}
@@ -1,11 +1,18 @@
 package io.vertx.workshop.portfolio.impl;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.HttpEndpoint;
 import io.vertx.serviceproxy.ProxyHelper;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.ServiceClientCache;
 import io.vertx.workshop.portfolio.Portfolio;
 import io.vertx.workshop.portfolio.PortfolioService;
 import org.junit.After;
@@ -13,12 +20,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author <a href="http://escoffier.me">Clement Escoffier</a>
  */
 @RunWith(VertxUnitRunner.class)
 public class PortfolioServiceImplTest {
 
+  private static final String ACCOUNT = "test";
+
   private Vertx vertx;
   private PortfolioService service;
   private Portfolio original;
@@ -30,7 +41,7 @@ public class PortfolioServiceImplTest {
     Async async = tc.async();
     vertx.deployVerticle(PortfolioVerticle.class.getName(), id -> {
       service = ProxyHelper.createProxy(PortfolioService.class, vertx, PortfolioService.ADDRESS);
-      service.getPortfolio(ar -> {
+      service.getPortfolio(ACCOUNT, ar -> {
         if (!ar.succeeded()) {
           System.out.println(ar.cause());
         }
@@ -49,7 +60,7 @@ public class PortfolioServiceImplTest {
   @Test
   public void testBuyStocks(TestContext tc) {
     Async async = tc.async();
-    service.buy(10, quote("A", 10, 20, 100), ar -> {
+    service.buy(ACCOUNT, 10, quote("A", 10, 20, 100), ar -> {
       tc.assertTrue(ar.succeeded());
       Portfolio portfolio = ar.result();
       tc.assertEquals(portfolio.getAmount("A"), 10);
@@ -62,7 +73,7 @@ public class PortfolioServiceImplTest {
   @Test
   public void testBuyAndSell(TestContext tc) {
     Async async = tc.async();
-    service.buy(10, quote("A", 10, 20, 100), ar -> {
+    service.buy(ACCOUNT, 10, quote("A", 10, 20, 100), ar -> {
       tc.assertTrue(ar.succeeded());
       Portfolio portfolio = ar.result();
       tc.assertEquals(portfolio.getAmount("A"), 10);
@@ -70,7 +81,7 @@ public class PortfolioServiceImplTest {
       tc.assertEquals(portfolio.getCash(), original.getCash() - 10 * 10);
 
       // Sell the bought stocks immediately
-      service.sell(5, quote("A", 10, 20, 100), ar2 -> {
+      service.sell(ACCOUNT, 5, quote("A", 10, 20, 100), ar2 -> {
         tc.assertTrue(ar2.succeeded());
         Portfolio portfolio2 = ar2.result();
         tc.assertEquals(portfolio2.getAmount("A"), 5);
@@ -84,7 +95,7 @@ public class PortfolioServiceImplTest {
   @Test
   public void testThatYouCannotBuyIfYouRunOutOfMoney(TestContext tc) {
     Async async = tc.async();
-    service.buy(10000, quote("A", 10, 20, 100000), ar -> {
+    service.buy(ACCOUNT, 10000, quote("A", 10, 20, 100000), ar -> {
       tc.assertTrue(ar.failed());
       tc.assertTrue(ar.cause().getMessage().contains("not enough money"));
       async.complete();
@@ -94,7 +105,7 @@ public class PortfolioServiceImplTest {
   @Test
   public void testThatYouCannotBuyIfThereIsNotEnoughShare(TestContext tc) {
     Async async = tc.async();
-    service.buy(100, quote("A", 10, 20, 10), ar -> {
+    service.buy(ACCOUNT, 100, quote("A", 10, 20, 10), ar -> {
       tc.assertTrue(ar.failed());
       tc.assertTrue(ar.cause().getMessage().contains("not enough stocks"));
       async.complete();
@@ -104,10 +115,10 @@ public class PortfolioServiceImplTest {
   @Test
   public void testThatYouCannotSellMoreThanWhatYouOwn(TestContext tc) {
     Async async = tc.async();
-    service.buy(100, quote("A", 10, 20, 100), ar -> {
-      service.sell(100, quote("A", 10, 20, 0), ar2 -> {
+    service.buy(ACCOUNT, 100, quote("A", 10, 20, 100), ar -> {
+      service.sell(ACCOUNT, 100, quote("A", 10, 20, 0), ar2 -> {
         tc.assertTrue(ar2.succeeded());
-        service.sell(1, quote("A", 10, 20, 0), ar3 -> {
+        service.sell(ACCOUNT, 1, quote("A", 10, 20, 0), ar3 -> {
           tc.assertTrue(ar3.failed());
           tc.assertTrue(ar3.cause().getMessage().contains("not enough stocks"));
           async.complete();
@@ -120,7 +131,7 @@ public class PortfolioServiceImplTest {
   @Test
   public void testYouCannotBuyANegativeAmount(TestContext tc) {
     Async async = tc.async();
-    service.buy(-1, quote("A", 10, 20, 100), ar -> {
+    service.buy(ACCOUNT, -1, quote("A", 10, 20, 100), ar -> {
       tc.assertTrue(ar.failed());
       async.complete();
     });
@@ -129,13 +140,139 @@ public class PortfolioServiceImplTest {
   @Test
   public void testYouCannotSellANegativeAmount(TestContext tc) {
     Async async = tc.async();
-    service.sell(-1, quote("A", 10, 20, 100), ar -> {
+    service.sell(ACCOUNT, -1, quote("A", 10, 20, 100), ar -> {
       tc.assertTrue(ar.failed());
       async.complete();
     });
   }
 
-  private JsonObject quote(String name, double ask, double bid, int available) {
+  @Test
+  public void testThatCashIsExact(TestContext tc) {
+    Async async = tc.async(1000);
+    for (int i = 0; i < 1000; i++) {
+      service.buy(ACCOUNT, 1, quote("A", 0.1, 0.1, 100), tc.asyncAssertSuccess(p -> async.countDown()));
+    }
+    async.handler(v -> service.getPortfolio(ACCOUNT, tc.asyncAssertSuccess(portfolio -> {
+      tc.assertEquals(original.getCash() - 100.0, portfolio.getCash());
+      tc.assertEquals(1000, portfolio.getAmount("A"));
+    })));
+  }
+
+  @Test
+  public void testEvaluationUsesASingleRequest(TestContext tc) {
+    Async async = tc.async();
+    AtomicInteger requests = new AtomicInteger();
+    vertx.createHttpServer().requestHandler(request -> {
+      requests.incrementAndGet();
+      tc.assertEquals(HttpMethod.POST, request.method());
+      request.bodyHandler(body -> {
+        tc.assertEquals(new JsonArray().add("A").add("B"), new JsonArray(body.toString()));
+        request.response().end(new JsonObject()
+            .put("A", quote("A", 11, 21, 100))
+            .put("B", quote("B", 12, 22, 100)).encode());
+      });
+    }).listen(35100, tc.asyncAssertSuccess(server -> {
+      Record record = HttpEndpoint.createRecord("quotes", "localhost", 35100, "/");
+      ServiceDiscovery.create(vertx).publish(record, tc.asyncAssertSuccess(r ->
+          service.buy(ACCOUNT, 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+              service.buy(ACCOUNT, 5, quote("B", 10, 20, 100), tc.asyncAssertSuccess(p2 ->
+                  service.evaluate(ACCOUNT, tc.asyncAssertSuccess(value -> {
+                    tc.assertEquals(10 * 21.0 + 5 * 22.0, value);
+                    tc.assertEquals(1, requests.get());
+                    async.complete();
+                  }))))))));
+    }));
+  }
+
+  @Test
+  public void testEvaluationUsesTheCachedPrices(TestContext tc) {
+    Async async = tc.async();
+    QuoteCache cache = new QuoteCache();
+    // No quotes service, the evaluation must not need it
+    PortfolioServiceImpl impl = new PortfolioServiceImpl(vertx,
+        new ServiceClientCache(vertx, ServiceDiscovery.create(vertx)), 10000, cache, 10000, null);
+    impl.buy(ACCOUNT, 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+        impl.buy(ACCOUNT, 5, quote("B", 10, 20, 100), tc.asyncAssertSuccess(p2 -> {
+          cache.update(new Quote("A", "A", 11, 12, 100, 10, 100));
+          cache.update(new Quote("B", "B", 13, 14, 100, 10, 100));
+          impl.evaluate(ACCOUNT, tc.asyncAssertSuccess(value -> {
+            tc.assertEquals(10 * 11.0 + 5 * 13.0, value);
+            async.complete();
+          }));
+        }))));
+  }
+
+  @Test
+  public void testEvaluationRequestsTheStalePrices(TestContext tc) {
+    Async async = tc.async();
+    vertx.createHttpServer().requestHandler(request -> request.bodyHandler(body -> {
+      // A is cached
+      tc.assertEquals(new JsonArray().add("B"), new JsonArray(body.toString()));
+      request.response().end(new JsonObject().put("B", quote("B", 12, 22, 100)).encode());
+    })).listen(35100, tc.asyncAssertSuccess(server -> {
+      QuoteCache cache = new QuoteCache();
+      ServiceDiscovery discovery = ServiceDiscovery.create(vertx);
+      PortfolioServiceImpl impl = new PortfolioServiceImpl(vertx, new ServiceClientCache(vertx, discovery), 10000,
+          cache, 100, null);
+      cache.update(new Quote("B", "B", 13, 14, 100, 10, 100));
+      discovery.publish(HttpEndpoint.createRecord("quotes", "localhost", 35100, "/"), tc.asyncAssertSuccess(r ->
+          impl.buy(ACCOUNT, 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+              impl.buy(ACCOUNT, 5, quote("B", 10, 20, 100), tc.asyncAssertSuccess(p2 ->
+                  // The price of B is now stale
+                  vertx.setTimer(200, l -> {
+                    cache.update(new Quote("A", "A", 11, 12, 100, 10, 100));
+                    impl.evaluate(ACCOUNT, tc.asyncAssertSuccess(value -> {
+                      tc.assertEquals(10 * 11.0 + 5 * 22.0, value);
+                      async.complete();
+                    }));
+                  })))))));
+    }));
+  }
+
+  @Test
+  public void testThatTheQuotesClientIsReusedUntilUnpublished(TestContext tc) {
+    Async async = tc.async();
+    vertx.createHttpServer().requestHandler(request -> request.bodyHandler(body ->
+        request.response().end(new JsonObject().put("A", quote("A", 12, 22, 100)).encode())))
+        .listen(35100, tc.asyncAssertSuccess(server -> {
+          ServiceDiscovery discovery = ServiceDiscovery.create(vertx);
+          ServiceClientCache clients = new ServiceClientCache(vertx, discovery);
+          PortfolioServiceImpl impl = new PortfolioServiceImpl(vertx, clients, 10000, new QuoteCache(), 0, null);
+          discovery.publish(HttpEndpoint.createRecord("quotes", "localhost", 35100, "/"), tc.asyncAssertSuccess(r ->
+              impl.buy(ACCOUNT, 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p ->
+                  impl.evaluate(ACCOUNT, tc.asyncAssertSuccess(v1 ->
+                      impl.evaluate(ACCOUNT, tc.asyncAssertSuccess(v2 -> {
+                        tc.assertEquals(220.0, v2);
+                        tc.assertEquals(1, clients.size());
+                        discovery.unpublish(r.getRegistration(), tc.asyncAssertSuccess(v -> vertx.setTimer(100, l -> {
+                          // The client has been released, and there is no quotes service anymore
+                          tc.assertEquals(0, clients.size());
+                          impl.evaluate(ACCOUNT, tc.asyncAssertFailure(t -> async.complete()));
+                        })));
+                      }))))))));
+        }));
+  }
+
+  @Test
+  public void testThatAccountsAreIndependent(TestContext tc) {
+    Async async = tc.async();
+    service.buy("alice", 10, quote("A", 10, 20, 100), tc.asyncAssertSuccess(p1 ->
+        service.getPortfolio("bob", tc.asyncAssertSuccess(p2 -> {
+          tc.assertEquals(10, p1.getAmount("A"));
+          tc.assertEquals(original.getCash() - 100, p1.getCash());
+          tc.assertEquals(0, p2.getAmount("A"));
+          tc.assertEquals(original.getCash(), p2.getCash());
+          async.complete();
+        }))));
+  }
+
+  @Test
+  public void testThatTheAccountIsRequired(TestContext tc) {
+    Async async = tc.async();
+    service.getPortfolio(null, tc.asyncAssertFailure(t -> async.complete()));
+  }
+
+  static JsonObject quote(String name, double ask, double bid, int available) {
     return new JsonObject()
         .put("name", name)
         .put("ask", ask)
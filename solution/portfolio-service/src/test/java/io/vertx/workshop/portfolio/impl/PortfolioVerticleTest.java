@@ -21,13 +21,16 @@ public class PortfolioVerticleTest {
   @Test
   public void testServiceAccess() {
     Vertx vertx = Vertx.vertx();
-    vertx.deployVerticle(PortfolioVerticle.class.getName());
+    // The service is available once the shards and the router are deployed
+    AtomicReference<String> deployment = new AtomicReference<>();
+    vertx.deployVerticle(PortfolioVerticle.class.getName(), ar -> deployment.set(ar.result()));
+    await().untilAtomic(deployment, not(nullValue()));
 
     PortfolioService proxy = ProxyHelper.createProxy(PortfolioService.class, vertx, PortfolioService.ADDRESS);
 
     assertThat(proxy).isNotNull();
     AtomicReference<Portfolio> reference = new AtomicReference<>();
-    proxy.getPortfolio(ar -> reference.set(ar.result()));
+    proxy.getPortfolio(PortfolioService.DEFAULT_ACCOUNT, ar -> reference.set(ar.result()));
 
     await().untilAtomic(reference, not(nullValue()));
 
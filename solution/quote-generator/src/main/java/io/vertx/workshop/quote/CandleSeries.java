@@ -0,0 +1,143 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The open/high/low/close/volume bars (candles) of a company for a given interval.
+ * <p>
+ * The closed bars are stored in ring buffers of primitive values (one array per field), so only the last `capacity`
+ * bars are kept. The bars are aligned on the interval (a 1 minute bar starts at the beginning of a minute), and the
+ * volume is the number of quotes received during the bar. No bar is created for an interval without quote.
+ */
+class CandleSeries {
+
+  private final String name;
+  private final String symbol;
+  private final String label;
+  private final long interval;
+
+  private final long[] starts;
+  private final double[] opens;
+  private final double[] highs;
+  private final double[] lows;
+  private final double[] closes;
+  private final long[] volumes;
+
+  /**
+   * The index of the next closed bar in the ring buffers.
+   */
+  private int next;
+  /**
+   * The number of closed bars in the ring buffers.
+   */
+  private int size;
+
+  private boolean open;
+  private long start;
+  private double high;
+  private double low;
+  private double first;
+  private double last;
+  private long volume;
+
+  /**
+   * Creates a new instance of {@link CandleSeries}.
+   *
+   * @param name     the name of the company
+   * @param symbol   the symbol of the company
+   * @param label    the label of the interval (such as `1m`)
+   * @param interval the interval in ms
+   * @param capacity the number of closed bars to keep
+   */
+  CandleSeries(String name, String symbol, String label, long interval, int capacity) {
+    this.name = name;
+    this.symbol = symbol;
+    this.label = label;
+    this.interval = interval;
+    starts = new long[capacity];
+    opens = new double[capacity];
+    highs = new double[capacity];
+    lows = new double[capacity];
+    closes = new double[capacity];
+    volumes = new long[capacity];
+  }
+
+  /**
+   * Adds a price to the current bar. If the price belongs to a later bar, the current one is closed first.
+   *
+   * @param time  the time of the price
+   * @param price the price
+   * @return {@code true} if a bar has been closed, it can be retrieved with {@link #last()}
+   */
+  boolean add(long time, double price) {
+    boolean closed = closeIfDue(time);
+    if (!open) {
+      open = true;
+      start = time - time % interval;
+      first = high = low = last = price;
+      volume = 1;
+    } else {
+      high = Math.max(high, price);
+      low = Math.min(low, price);
+      last = price;
+      volume++;
+    }
+    return closed;
+  }
+
+  /**
+   * Closes the current bar if its interval has elapsed.
+   *
+   * @param now the current time
+   * @return {@code true} if a bar has been closed, it can be retrieved with {@link #last()}
+   */
+  boolean closeIfDue(long now) {
+    if (!open || now < start + interval) {
+      return false;
+    }
+    starts[next] = start;
+    opens[next] = first;
+    highs[next] = high;
+    lows[next] = low;
+    closes[next] = last;
+    volumes[next] = volume;
+    next = (next + 1) % starts.length;
+    size = Math.min(size + 1, starts.length);
+    open = false;
+    return true;
+  }
+
+  /**
+   * @return the last closed bar, {@code null} if none
+   */
+  JsonObject last() {
+    return size == 0 ? null : toJson((next - 1 + starts.length) % starts.length);
+  }
+
+  /**
+   * @param count the maximum number of bars
+   * @return the last closed bars, from the oldest to the most recent
+   */
+  JsonArray last(int count) {
+    int n = Math.min(count, size);
+    JsonArray array = new JsonArray();
+    for (int i = n; i > 0; i--) {
+      array.add(toJson((next - i + starts.length) % starts.length));
+    }
+    return array;
+  }
+
+  private JsonObject toJson(int index) {
+    return new JsonObject()
+        .put("name", name)
+        .put("symbol", symbol)
+        .put("interval", label)
+        .put("start", starts[index])
+        .put("open", opens[index])
+        .put("high", highs[index])
+        .put("low", lows[index])
+        .put("close", closes[index])
+        .put("volume", volumes[index]);
+  }
+}
@@ -0,0 +1,129 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A verticle aggregating the quotes received on the `market` address into open/high/low/close/volume bars (candles),
+ * computed from the bid price, for each company and interval (see {@link CandleSeries}).
+ * <p>
+ * The closed bars are published on the `market.candles.<interval>` addresses (such as `market.candles.1m`). The last
+ * bars can be retrieved by sending a request on the `market.candles` address, containing the `name` of the company,
+ * the `interval` and the `count` of bars.
+ */
+public class CandleVerticle extends AbstractVerticle {
+
+  /**
+   * The address receiving the requests for the last bars, and prefix of the addresses of the closed bars.
+   */
+  public static final String ADDRESS = "market.candles";
+
+  private final Map<String, Long> intervals = new LinkedHashMap<>();
+  private int capacity;
+
+  /**
+   * interval -> name -> series
+   */
+  private final Map<String, Map<String, CandleSeries>> series = new HashMap<>();
+
+  @Override
+  public void start() {
+    init(config());
+
+    QuoteCodec.register(vertx);
+
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> add(message.body(),
+        System.currentTimeMillis()));
+
+    // Close the bars even if no quote is received. The bars start on a multiple of the interval, so the timers are
+    // aligned on these boundaries: the first one fires at the end of the current bar, then every interval.
+    intervals.forEach((label, interval) -> vertx.setTimer(interval - System.currentTimeMillis() % interval, t -> {
+      close(label);
+      vertx.setPeriodic(interval, l -> close(label));
+    }));
+
+    vertx.eventBus().<JsonObject>consumer(ADDRESS, message -> {
+      JsonObject request = message.body();
+      Map<String, CandleSeries> byName = series.get(request.getString("interval"));
+      if (byName == null) {
+        message.fail(400, "Unknown interval " + request.getString("interval"));
+        return;
+      }
+      CandleSeries s = byName.get(request.getString("name"));
+      message.reply(s == null ? new JsonArray() : s.last(request.getInteger("count", capacity)));
+    });
+  }
+
+  /**
+   * Reads the configuration.
+   *
+   * @param config the configuration
+   */
+  void init(JsonObject config) {
+    for (Object label : config.getJsonArray("candles.intervals", new JsonArray().add("1s").add("1m").add("5m"))) {
+      intervals.put((String) label, parse((String) label));
+      series.put((String) label, new HashMap<>());
+    }
+    capacity = config.getInteger("candles.size", 512);
+  }
+
+  /**
+   * Closes and publishes the bars of the given interval that are due.
+   *
+   * @param label the interval
+   */
+  private void close(String label) {
+    long now = System.currentTimeMillis();
+    series.get(label).values().forEach(s -> {
+      if (s.closeIfDue(now)) {
+        vertx.eventBus().publish(ADDRESS + "." + label, s.last());
+      }
+    });
+  }
+
+  /**
+   * Adds a quote to the series of the company.
+   *
+   * @param quote the quote
+   * @param time  the reception time
+   */
+  void add(Quote quote, long time) {
+    intervals.forEach((label, interval) -> {
+      CandleSeries s = series.get(label).computeIfAbsent(quote.getName(),
+          name -> new CandleSeries(name, quote.getSymbol(), label, interval, capacity));
+      if (s.add(time, quote.getBid())) {
+        vertx.eventBus().publish(ADDRESS + "." + label, s.last());
+      }
+    });
+  }
+
+  /**
+   * Parses an interval such as `500ms`, `1s`, `5m` or `1h`.
+   *
+   * @param label the interval
+   * @return the interval in ms
+   */
+  static long parse(String label) {
+    if (label.endsWith("ms")) {
+      return Long.parseLong(label.substring(0, label.length() - 2));
+    }
+    long value = Long.parseLong(label.substring(0, label.length() - 1));
+    switch (label.charAt(label.length() - 1)) {
+      case 's':
+        return value * 1000;
+      case 'm':
+        return value * 60 * 1000;
+      case 'h':
+        return value * 60 * 60 * 1000;
+      default:
+        throw new IllegalArgumentException("Invalid interval: " + label);
+    }
+  }
+}
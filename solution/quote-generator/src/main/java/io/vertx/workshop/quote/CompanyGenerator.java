@@ -0,0 +1,137 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Prices;
+import io.vertx.workshop.common.Quote;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * The market data of a company: its state and the (very unrealistic and irrational) computation of its evaluation.
+ * It is driven by a {@link MarketDataVerticle} (one company) or a {@link TickEngineVerticle} (many companies).
+ * <p>
+ * When a `seed` is configured, the generated values are reproducible: the same seed always produces the same
+ * sequence of quotes. The prices are computed in ticks (see {@link Prices}), so the computation does not suffer from
+ * rounding errors.
+ * <p>
+ * The computation does not allocate: the state is kept in primitive fields, and nothing is boxed. Publishing a tick on
+ * the event bus creates one (immutable) {@link Quote}, shared by all the local consumers - it cannot be reused, as the
+ * consumers may keep it - and the event bus creates its message objects for each publication (the delivery options are
+ * shared). The consumers running on the thread of the generator and not keeping the quote can opt in to the pooled
+ * path instead: {@link #publish(TickListener)} passes the generator itself as a reused, mutable quote, so the ticks
+ * do not allocate at all.
+ */
+class CompanyGenerator {
+
+  /**
+   * The default options, `publish(address, message)` would create a new instance for each message. Never modified.
+   */
+  private static final DeliveryOptions OPTIONS = new DeliveryOptions();
+
+  final String name;
+  final String symbol;
+  final int variation;
+  final long period;
+  final int stocks;
+  final long price;
+
+  long bid;
+  long ask;
+  int share;
+  private long value;
+
+  private final SplittableRandom random;
+  private final String address;
+
+  /**
+   * Creates a new instance of {@link CompanyGenerator}, reading the configuration of the company and setting the
+   * initial values.
+   *
+   * @param config the configuration
+   */
+  CompanyGenerator(JsonObject config) {
+    period = config.getLong("period", 3000L);
+    variation = config.getInteger("variation", 100);
+    name = config.getString("name");
+    Objects.requireNonNull(name);
+    symbol = config.getString("symbol", name);
+    address = GeneratorConfigVerticle.address(symbol);
+    stocks = config.getInteger("volume", 10000);
+    price = Prices.toTicks(config.getDouble("price", 100.0));
+
+    Long seed = config.getLong("seed");
+    random = seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+
+    value = price;
+    ask = price + random.nextInt(variation / 2) * Prices.SCALE;
+    bid = price + random.nextInt(variation / 2) * Prices.SCALE;
+
+    share = stocks / 2;
+  }
+
+  /**
+   * Sends the market data on the `market` address and on the address of the company.
+   *
+   * @param vertx the Vert.x instance
+   */
+  void publish(Vertx vertx) {
+    Quote quote = toQuote();
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote, OPTIONS);
+    vertx.eventBus().publish(address, quote, OPTIONS);
+  }
+
+  /**
+   * Sends the market data to a listener on the current thread, without allocating a quote.
+   *
+   * @param listener the listener, must not keep the generator
+   */
+  void publish(TickListener listener) {
+    listener.onTick(this);
+  }
+
+  /**
+   * Compute the new evaluation...
+   */
+  void compute() {
+
+    if (random.nextBoolean()) {
+      value = value + random.nextInt(variation) * Prices.SCALE;
+      ask = value + random.nextInt(variation / 2) * Prices.SCALE;
+      bid = value + random.nextInt(variation / 2) * Prices.SCALE;
+    } else {
+      value = value - random.nextInt(variation) * Prices.SCALE;
+      ask = value - random.nextInt(variation / 2) * Prices.SCALE;
+      bid = value - random.nextInt(variation / 2) * Prices.SCALE;
+    }
+
+    if (value <= 0) {
+      value = Prices.SCALE;
+    }
+    if (ask <= 0) {
+      ask = Prices.SCALE;
+    }
+    if (bid <= 0) {
+      bid = Prices.SCALE;
+    }
+
+    if (random.nextBoolean()) {
+      // Adjust share
+      int shareVariation = random.nextInt(100);
+      if (shareVariation > 0 && share + shareVariation < stocks) {
+        share += shareVariation;
+      } else if (shareVariation < 0 && share + shareVariation > 0) {
+        share += shareVariation;
+      }
+    }
+  }
+
+  /**
+   * @return the market data (quote) to send, its json representation is available using {@link Quote#toJson()}.
+   */
+  Quote toQuote() {
+    return Quote.fromTicks(symbol, name, bid, ask, stocks, price, share);
+  }
+}
@@ -0,0 +1,57 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Runs a number of ticks as fast as possible, instead of on a timer. The ticks are run by chunks, and the next chunk
+ * is scheduled on the context, so the event loop is not blocked.
+ */
+class FastForward {
+
+  private static final int CHUNK = 1000;
+
+  private final Vertx vertx;
+  private final String name;
+  private final Runnable tick;
+  private final long count;
+
+  private long done;
+  private long begin;
+
+  /**
+   * Creates a new instance of {@link FastForward}.
+   *
+   * @param vertx the Vert.x instance
+   * @param name  the name used in the logs
+   * @param tick  the action to run for each tick
+   * @param count the number of ticks
+   */
+  FastForward(Vertx vertx, String name, Runnable tick, long count) {
+    this.vertx = vertx;
+    this.name = name;
+    this.tick = tick;
+    this.count = count;
+  }
+
+  /**
+   * Starts running the ticks, must be called on the context of the verticle.
+   */
+  void start() {
+    begin = System.nanoTime();
+    run();
+  }
+
+  private void run() {
+    long end = Math.min(count, done + CHUNK);
+    while (done < end) {
+      tick.run();
+      done++;
+    }
+    if (done < count) {
+      vertx.runOnContext(v -> run());
+    } else {
+      long elapsed = (System.nanoTime() - begin) / 1000000;
+      System.out.println(name + ": " + count + " ticks generated in " + elapsed + " ms");
+    }
+  }
+}
@@ -1,9 +1,13 @@
 package io.vertx.workshop.quote;
 
 import io.vertx.core.DeploymentOptions;
+import io.vertx.core.VertxOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.workshop.common.MicroServiceVerticle;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteBatch;
+import io.vertx.workshop.common.QuoteCodec;
 
 /**
  * a verticle generating "fake" quotes based on the configuration.
@@ -15,6 +19,24 @@ public class GeneratorConfigVerticle extends MicroServiceVerticle {
    */
   public static final String ADDRESS = "market";
 
+  /**
+   * The address on which the batches of data are sent, when enabled.
+   */
+  public static final String BATCH_ADDRESS = "market.batch";
+
+  /**
+   * The address on which the deltas of data are sent, when enabled.
+   */
+  public static final String DELTA_ADDRESS = "market.delta";
+
+  /**
+   * @param symbol the symbol of a company
+   * @return the address on which the data of the company are sent
+   */
+  public static String address(String symbol) {
+    return ADDRESS + "." + symbol;
+  }
+
   /**
    * This method is called when the verticle is deployed.
    */
@@ -22,25 +44,101 @@ public class GeneratorConfigVerticle extends MicroServiceVerticle {
   public void start() {
     super.start();
 
+    // The quotes are sent on the event bus using a binary codec.
+    QuoteCodec.register(vertx);
+
     // Read the configuration, and deploy a MarketDataVerticle for each company listed in the configuration.
-    JsonArray quotes = config().getJsonArray("companies");
-    for (Object q : quotes) {
-      JsonObject company = (JsonObject) q;
-      // Deploy the verticle with a configuration.
-      vertx.deployVerticle(MarketDataVerticle.class.getName(), new DeploymentOptions().setConfig(company));
+    JsonArray quotes = withGeneratorOptions(config().getJsonArray("companies"));
+    if (config().getBoolean("replay", false)) {
+      // Replay a recorded journal instead of generating the quotes, opening the files is blocking
+      vertx.deployVerticle(MarketDataReplayVerticle.class.getName(),
+          new DeploymentOptions().setConfig(config()).setWorker(true));
+    } else if (config().getBoolean("tick-engine", false)) {
+      deployTickEngine(quotes);
+    } else {
+      for (Object q : quotes) {
+        JsonObject company = (JsonObject) q;
+        // Deploy the verticle with a configuration.
+        vertx.deployVerticle(MarketDataVerticle.class.getName(), new DeploymentOptions().setConfig(company));
+      }
     }
 
     // Deploy another verticle
-    vertx.deployVerticle(RestQuoteAPIVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+    int instances = config().getInteger("http.instances", 1);
+    if (instances > 1) {
+      // The instances share the port, and a store updated by a single consumer.
+      QuoteStore store = new QuoteStore(config().getInteger("history.size", 1024));
+      store.listen(vertx);
+      for (int i = 0; i < instances; i++) {
+        vertx.deployVerticle(new RestQuoteAPIVerticle(store), new DeploymentOptions().setConfig(config()));
+      }
+    } else {
+      vertx.deployVerticle(RestQuoteAPIVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+    }
+
+    if (config().getBoolean("batch", false)) {
+      // Coalesce the quotes and send them on the batch address
+      vertx.deployVerticle(MarketDataBatchVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+      publishMessageSource("market-data-batch", BATCH_ADDRESS, QuoteBatch.class, rec -> {
+        if (!rec.succeeded()) {
+          rec.cause().printStackTrace();
+        }
+        System.out.println("Market-Data batch service published : " + rec.succeeded());
+      });
+    }
+
+    if (config().getBoolean("delta", false)) {
+      // Send the changes of the quotes on the delta address
+      vertx.deployVerticle(MarketDataDeltaVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+      publishMessageSource("market-data-delta", DELTA_ADDRESS, JsonObject.class, rec -> {
+        if (!rec.succeeded()) {
+          rec.cause().printStackTrace();
+        }
+        System.out.println("Market-Data delta service published : " + rec.succeeded());
+      });
+    }
+
+    if (config().getBoolean("candles", false)) {
+      // Aggregate the quotes into bars
+      vertx.deployVerticle(CandleVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+    }
+
+    if (config().getBoolean("multicast", false)) {
+      // Send the quotes to a multicast group
+      vertx.deployVerticle(MulticastFeedVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+    }
+
+    if (config().getBoolean("gateway", false)) {
+      // Stream the quotes to the TCP clients
+      vertx.deployVerticle(QuoteGatewayVerticle.class.getName(), new DeploymentOptions().setConfig(config()));
+    }
+
+    if (config().getBoolean("recorder", false)) {
+      // Record the quotes in a journal, creating the files is blocking
+      vertx.deployVerticle(MarketDataRecorderVerticle.class.getName(),
+          new DeploymentOptions().setConfig(config()).setWorker(true));
+    }
 
     // Publish the services in the discovery infrastructure.
-    publishMessageSource("market-data", ADDRESS, rec -> {
+    publishMessageSource("market-data", ADDRESS, Quote.class, rec -> {
       if (!rec.succeeded()) {
         rec.cause().printStackTrace();
       }
       System.out.println("Market-Data service published : " + rec.succeeded());
     });
 
+    // And a source per company, so consumers only receive the quotes they need.
+    for (Object q : quotes) {
+      JsonObject company = (JsonObject) q;
+      String symbol = company.getString("symbol", company.getString("name"));
+      publishMessageSource("market-data-" + symbol, address(symbol), Quote.class,
+          new JsonObject().put("company", company.getString("name")).put("symbol", symbol), rec -> {
+            if (!rec.succeeded()) {
+              rec.cause().printStackTrace();
+            }
+          });
+    }
+
     publishHttpEndpoint("quotes", "localhost", config().getInteger("http.port", 8080), ar -> {
       if (ar.failed()) {
         ar.cause().printStackTrace();
@@ -49,4 +147,64 @@ public class GeneratorConfigVerticle extends MicroServiceVerticle {
       }
     });
   }
-}
\ No newline at end of file
+
+  /**
+   * Deploys the companies on a set of {@link TickEngineVerticle} (shards) instead of one verticle per company. By
+   * default there is one shard per event loop.
+   *
+   * @param quotes the companies
+   */
+  private void deployTickEngine(JsonArray quotes) {
+    int shards = Math.min(quotes.size(),
+        config().getInteger("tick-engine.shards", VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE));
+    JsonArray[] companies = new JsonArray[shards];
+    for (int i = 0; i < shards; i++) {
+      companies[i] = new JsonArray();
+    }
+    for (int i = 0; i < quotes.size(); i++) {
+      companies[i % shards].add(quotes.getJsonObject(i));
+    }
+
+    for (JsonArray shard : companies) {
+      JsonObject conf = new JsonObject().put("companies", shard);
+      Long resolution = config().getLong("tick-engine.resolution");
+      if (resolution != null) {
+        conf.put("resolution", resolution);
+      }
+      Long fastForward = config().getLong("fast-forward");
+      if (fastForward != null) {
+        conf.put("fast-forward", fastForward);
+      }
+      vertx.deployVerticle(TickEngineVerticle.class.getName(), new DeploymentOptions().setConfig(conf));
+    }
+  }
+
+  /**
+   * Applies the global `seed` and `fast-forward` options to the companies. The seed of each company is derived from
+   * the global seed and its symbol (unless the company has its own `seed`), so it does not depend on the order of the
+   * companies.
+   *
+   * @param quotes the companies
+   * @return the configuration of the companies
+   */
+  private JsonArray withGeneratorOptions(JsonArray quotes) {
+    Long seed = config().getLong("seed");
+    Long fastForward = config().getLong("fast-forward");
+    if (seed == null && fastForward == null) {
+      return quotes;
+    }
+    JsonArray result = new JsonArray();
+    for (Object q : quotes) {
+      JsonObject company = ((JsonObject) q).copy();
+      if (seed != null && !company.containsKey("seed")) {
+        String symbol = company.getString("symbol", company.getString("name"));
+        company.put("seed", seed * 31 + symbol.hashCode());
+      }
+      if (fastForward != null) {
+        company.put("fast-forward", fastForward);
+      }
+      result.add(company);
+    }
+    return result;
+  }
+}
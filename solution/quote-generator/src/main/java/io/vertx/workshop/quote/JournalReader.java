@@ -0,0 +1,144 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.workshop.common.Quote;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the quotes of a journal written by {@link JournalWriter}, segment after segment, using memory-mapped files.
+ * <p>
+ * Usage: call {@link #next()} to move to the next record, then read its {@link #timestamp()} and {@link #quote()}.
+ * Instances are not thread-safe, and opening a segment is a blocking operation.
+ */
+public class JournalReader implements AutoCloseable {
+
+  private final File[] segments;
+  private int index = -1;
+  private MappedByteBuffer segment;
+
+  private long timestamp;
+  private Quote quote;
+
+  /**
+   * Creates a new instance of {@link JournalReader} on the segments existing when it is created.
+   *
+   * @param directory the directory of the journal
+   */
+  public JournalReader(File directory) {
+    this.segments = segments(directory);
+  }
+
+  /**
+   * @param directory the directory of the journal
+   * @return the segment files, in order
+   */
+  static File[] segments(File directory) {
+    File[] files = directory.listFiles((dir, name) -> name.startsWith("quotes-") && name.endsWith(".journal"));
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files);
+    return files;
+  }
+
+  /**
+   * @param segment a segment file
+   * @return the index of the segment
+   */
+  static int index(File segment) {
+    String name = segment.getName();
+    return Integer.parseInt(name.substring("quotes-".length(), name.length() - ".journal".length()));
+  }
+
+  /**
+   * @param segment a segment file
+   * @return the timestamp of the last record of the segment, {@literal 0} if empty
+   * @throws IOException if the segment cannot be read
+   */
+  static long lastTimestamp(File segment) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+      MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+      long last = 0;
+      while (buffer.remaining() >= JournalWriter.HEADER) {
+        int position = buffer.position();
+        int length = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining() + 4) {
+          break;
+        }
+        last = buffer.getLong();
+        buffer.position(position + length);
+      }
+      return last;
+    }
+  }
+
+  /**
+   * Moves to the next record.
+   *
+   * @return {@code true} if there is a record, {@code false} at the end of the journal
+   * @throws IOException if a segment cannot be read
+   */
+  public boolean next() throws IOException {
+    while (true) {
+      if (segment != null && segment.remaining() >= JournalWriter.HEADER) {
+        int length = segment.getInt();
+        // A length of 0 is the end of the segment, or a record not committed
+        if (length > 0 && length <= segment.remaining() + 4) {
+          read();
+          return true;
+        }
+      }
+      if (index + 1 >= segments.length) {
+        segment = null;
+        return false;
+      }
+      try (RandomAccessFile file = new RandomAccessFile(segments[++index], "r")) {
+        segment = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+      }
+    }
+  }
+
+  private void read() {
+    timestamp = segment.getLong();
+    long bid = segment.getLong();
+    long ask = segment.getLong();
+    long open = segment.getLong();
+    int volume = segment.getInt();
+    int shares = segment.getInt();
+    String symbol = string();
+    String name = string();
+    quote = Quote.fromTicks(symbol, name, bid, ask, volume, open, shares);
+  }
+
+  private String string() {
+    byte[] bytes = new byte[segment.getShort()];
+    segment.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the timestamp of the current record, in ns since the epoch
+   */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @return the quote of the current record
+   */
+  public Quote quote() {
+    return quote;
+  }
+
+  @Override
+  public void close() {
+    segment = null;
+    index = segments.length;
+  }
+}
@@ -0,0 +1,202 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.workshop.common.Quote;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends quotes to a journal: a directory of memory-mapped segment files of a fixed size, named
+ * `quotes-&lt;index&gt;.journal`. Each record has the following layout:
+ * <pre>
+ * length (int, of the whole record) | timestamp (long, ns since the epoch) | bid (long, ticks) | ask (long, ticks) |
+ * open (long, ticks) | volume (int) | shares (int) | symbol (short length, UTF-8) | name (short length, UTF-8)
+ * </pre>
+ * A length of 0 marks the end of the segment (the files are filled with zeros when they are created). The length is
+ * written after the rest of the record, so a record torn by the death of the process is seen as the end of the
+ * journal. The records written since the last {@link #flush()} can still be lost if the machine crashes.
+ * <p>
+ * The records are written in the mapped memory, so there is no system call per record: the operating system writes
+ * the pages to the disk, and {@link #flush()} forces it. The encoded names of the companies are cached, so appending a
+ * record does not allocate. Instances are not thread-safe, and opening a segment is a blocking operation.
+ */
+public class JournalWriter implements AutoCloseable {
+
+  /**
+   * The size of a record without the symbol and name.
+   */
+  static final int HEADER = 4 + 8 + 8 + 8 + 8 + 4 + 4;
+
+  private final File directory;
+  private final int segmentSize;
+  private final Map<String, byte[][]> names = new HashMap<>();
+
+  // The timestamps are computed from the monotonic clock, relative to the start of the writer
+  private final long epoch = System.currentTimeMillis() * 1_000_000L;
+  private final long origin = System.nanoTime();
+  // The last timestamp, including the existing segments, so the timestamps keep increasing
+  private long last;
+
+  private int index;
+  private MappedByteBuffer segment;
+  private long records;
+
+  /**
+   * Creates a new instance of {@link JournalWriter}. The new segments are created after the existing ones.
+   *
+   * @param directory   the directory of the journal, created if needed
+   * @param segmentSize the size of the segment files in bytes
+   * @throws IOException if the first segment cannot be created
+   */
+  public JournalWriter(File directory, int segmentSize) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create the journal directory " + directory.getAbsolutePath());
+    }
+    File[] existing = JournalReader.segments(directory);
+    if (existing.length > 0) {
+      index = JournalReader.index(existing[existing.length - 1]) + 1;
+      last = JournalReader.lastTimestamp(existing[existing.length - 1]);
+    }
+    roll();
+  }
+
+  /**
+   * @param directory the directory of the journal
+   * @param index     the index of the segment
+   * @return the segment file
+   */
+  static File segment(File directory, int index) {
+    return new File(directory, String.format("quotes-%010d.journal", index));
+  }
+
+  /**
+   * Appends a quote, timestamped with the current time.
+   *
+   * @param quote the quote
+   * @throws IOException if a new segment cannot be created
+   */
+  public void append(Quote quote) throws IOException {
+    append(now(), quote);
+  }
+
+  /**
+   * Appends the current state of a generator, timestamped with the current time. It does not create a quote, so it
+   * can be used as a {@link TickListener}.
+   *
+   * @param company the generator
+   * @throws IOException if a new segment cannot be created
+   */
+  void append(CompanyGenerator company) throws IOException {
+    append(now(), company.symbol, company.name, company.bid, company.ask, company.price, company.stocks,
+        company.share);
+  }
+
+  /**
+   * Appends a quote.
+   *
+   * @param timestamp the timestamp in ns since the epoch
+   * @param quote     the quote
+   * @throws IOException if a new segment cannot be created
+   */
+  public void append(long timestamp, Quote quote) throws IOException {
+    append(timestamp, quote.getSymbol(), quote.getName(), quote.getBidTicks(), quote.getAskTicks(),
+        quote.getOpenTicks(), quote.getVolume(), quote.getShares());
+  }
+
+  /**
+   * Appends a quote given by its fields, the prices in ticks (see {@link io.vertx.workshop.common.Prices}).
+   *
+   * @param timestamp the timestamp in ns since the epoch
+   * @param symbol    the symbol of the company
+   * @param name      the name of the company
+   * @param bid       the bid price
+   * @param ask       the ask price
+   * @param open      the opening price
+   * @param volume    the number of stocks of the company
+   * @param shares    the number of shares available on the market
+   * @throws IOException if a new segment cannot be created
+   */
+  public void append(long timestamp, String symbol, String name, long bid, long ask, long open, int volume,
+                     int shares) throws IOException {
+    byte[][] encoded = names.get(symbol);
+    if (encoded == null) {
+      encoded = new byte[][]{
+          symbol.getBytes(StandardCharsets.UTF_8),
+          name.getBytes(StandardCharsets.UTF_8)
+      };
+      names.put(symbol, encoded);
+    }
+
+    int length = HEADER + 2 + encoded[0].length + 2 + encoded[1].length;
+    if (length > segmentSize - 4) {
+      throw new IllegalArgumentException("The record does not fit in a segment: " + symbol);
+    }
+    // Keep room for the end marker
+    if (segment.remaining() < length + 4) {
+      roll();
+    }
+
+    // The length is written last, it commits the record
+    int position = segment.position();
+    segment.position(position + 4);
+    segment.putLong(timestamp)
+        .putLong(bid)
+        .putLong(ask)
+        .putLong(open)
+        .putInt(volume)
+        .putInt(shares)
+        .putShort((short) encoded[0].length)
+        .put(encoded[0])
+        .putShort((short) encoded[1].length)
+        .put(encoded[1]);
+    segment.putInt(position, length);
+    last = timestamp;
+    records++;
+  }
+
+  private long now() {
+    return Math.max(epoch + System.nanoTime() - origin, last + 1);
+  }
+
+  /**
+   * @return the number of records appended by this writer
+   */
+  public long records() {
+    return records;
+  }
+
+  /**
+   * Forces the content of the current segment to be written to the disk.
+   */
+  public void flush() {
+    segment.force();
+  }
+
+  @Override
+  public void close() {
+    if (segment != null) {
+      segment.force();
+      // The mapping is released when the buffer is garbage collected
+      segment = null;
+    }
+  }
+
+  private void roll() throws IOException {
+    if (segment != null) {
+      segment.putInt(0);
+      segment.force();
+    }
+    try (RandomAccessFile file = new RandomAccessFile(segment(directory, index++), "rw")) {
+      // The mapping outlives the channel
+      segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteBatch;
+import io.vertx.workshop.common.QuoteBatchCodec;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A verticle coalescing the quotes emitted on the `market` address by this node, and sending them as a
+ * {@link QuoteBatch} on the `market.batch` address.
+ * <p>
+ * A batch is sent when `batch.window` ms elapsed since the first quote of the batch, or when it contains
+ * `batch.size` quotes. The `market` address is not impacted.
+ */
+public class MarketDataBatchVerticle extends AbstractVerticle {
+
+  private long window;
+  private int size;
+
+  private final List<Quote> pending = new ArrayList<>();
+  private long timer = -1;
+
+  @Override
+  public void start() {
+    init(config());
+
+    QuoteCodec.register(vertx);
+    QuoteBatchCodec.register(vertx);
+
+    // Only the quotes emitted by this node are batched.
+    vertx.eventBus().<Quote>localConsumer(GeneratorConfigVerticle.ADDRESS, message -> add(message.body()));
+  }
+
+  @Override
+  public void stop() {
+    flush();
+  }
+
+  /**
+   * Reads the configuration.
+   *
+   * @param config the configuration
+   */
+  void init(JsonObject config) {
+    window = config.getLong("batch.window", 5L);
+    size = config.getInteger("batch.size", 100);
+  }
+
+  private void add(Quote quote) {
+    pending.add(quote);
+    if (pending.size() >= size) {
+      flush();
+    } else if (timer == -1) {
+      timer = vertx.setTimer(window, l -> {
+        timer = -1;
+        flush();
+      });
+    }
+  }
+
+  private void flush() {
+    if (timer != -1) {
+      vertx.cancelTimer(timer);
+      timer = -1;
+    }
+    if (!pending.isEmpty()) {
+      QuoteBatch batch = new QuoteBatch(pending.toArray(new Quote[pending.size()]));
+      pending.clear();
+      vertx.eventBus().publish(GeneratorConfigVerticle.BATCH_ADDRESS, batch);
+    }
+  }
+}
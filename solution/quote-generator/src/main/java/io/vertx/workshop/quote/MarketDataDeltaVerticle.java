@@ -0,0 +1,83 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import io.vertx.workshop.common.QuoteDeltaDecoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A verticle sending the quotes emitted on the `market` address by this node as deltas on the `market.delta` address.
+ * <p>
+ * For each company, a delta only contains the `symbol`, a sequence number (`seq`) and the fields that have changed
+ * since the previous message (`bid`, `ask`, `shares`). The first message of a company, and the next message of each
+ * company every `delta.keyframe` ms, is a keyframe containing the whole quote, so new subscribers can sync up. The
+ * {@link QuoteDeltaDecoder} rebuilds the quotes from these messages. The `market` address is not impacted.
+ */
+public class MarketDataDeltaVerticle extends AbstractVerticle {
+
+  private final Map<String, State> states = new HashMap<>();
+
+  @Override
+  public void start() {
+    QuoteCodec.register(vertx);
+
+    long keyframe = config().getLong("delta.keyframe", 5000L);
+    vertx.setPeriodic(keyframe, l -> states.values().forEach(state -> state.keyframe = true));
+
+    // Only the quotes emitted by this node are sent.
+    vertx.eventBus().<Quote>localConsumer(GeneratorConfigVerticle.ADDRESS, message ->
+        vertx.eventBus().publish(GeneratorConfigVerticle.DELTA_ADDRESS, encode(message.body())));
+  }
+
+  /**
+   * Computes the message to send for the given quote.
+   *
+   * @param quote the quote
+   * @return the keyframe or delta
+   */
+  JsonObject encode(Quote quote) {
+    State state = states.get(quote.getSymbol());
+    if (state == null) {
+      state = new State();
+      states.put(quote.getSymbol(), state);
+    }
+
+    JsonObject message;
+    if (state.keyframe) {
+      message = quote.toJson().put("keyframe", true);
+      state.keyframe = false;
+    } else {
+      message = new JsonObject().put("symbol", quote.getSymbol());
+      if (quote.getBid() != state.bid) {
+        message.put("bid", quote.getBid());
+      }
+      if (quote.getAsk() != state.ask) {
+        message.put("ask", quote.getAsk());
+      }
+      if (quote.getShares() != state.shares) {
+        message.put("shares", quote.getShares());
+      }
+    }
+    message.put("seq", ++state.seq);
+
+    state.bid = quote.getBid();
+    state.ask = quote.getAsk();
+    state.shares = quote.getShares();
+    return message;
+  }
+
+  /**
+   * The last values sent for a company.
+   */
+  private static class State {
+    private long seq;
+    private boolean keyframe = true;
+    private double bid;
+    private double ask;
+    private int shares;
+  }
+}
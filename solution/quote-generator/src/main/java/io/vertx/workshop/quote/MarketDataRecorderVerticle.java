@@ -0,0 +1,54 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A verticle recording the quotes sent on the `market` address (by all the nodes) in a journal (see
+ * {@link JournalWriter}), for offline analysis or to replay them with the {@link MarketDataReplayVerticle}.
+ * <p>
+ * It must be deployed as a worker verticle, as creating the segment files is blocking.
+ * <p>
+ * Configuration: `recorder.directory` (default: `journal`), `recorder.segment.size` in bytes (default: 64 MB) and
+ * `recorder.flush` the period in ms at which the pages are forced to the disk (default: 1000, 0 to let the operating
+ * system decide).
+ */
+public class MarketDataRecorderVerticle extends AbstractVerticle {
+
+  private JournalWriter writer;
+  private MessageConsumer<Quote> consumer;
+
+  @Override
+  public void start() throws Exception {
+    QuoteCodec.register(vertx);
+
+    writer = new JournalWriter(new File(config().getString("recorder.directory", "journal")),
+        config().getInteger("recorder.segment.size", 64 * 1024 * 1024));
+
+    long flush = config().getLong("recorder.flush", 1000L);
+    if (flush > 0) {
+      vertx.setPeriodic(flush, l -> writer.flush());
+    }
+
+    consumer = vertx.eventBus().consumer(GeneratorConfigVerticle.ADDRESS, message -> {
+      try {
+        writer.append(message.body());
+      } catch (IOException e) {
+        // Stop recording, the journal is kept up to the last record
+        System.err.println("Cannot record the quotes: " + e.getMessage());
+        consumer.unregister();
+      }
+    });
+  }
+
+  @Override
+  public void stop() {
+    writer.close();
+    System.out.println("Market data recorder stopped after " + writer.records() + " quotes");
+  }
+}
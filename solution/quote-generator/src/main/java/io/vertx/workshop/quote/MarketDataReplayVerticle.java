@@ -0,0 +1,126 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A verticle replaying a journal recorded by the {@link MarketDataRecorderVerticle}: the quotes are sent on the
+ * `market` address and the address of their company, as if they were generated by the {@link MarketDataVerticle}, so
+ * the consumers are not impacted.
+ * <p>
+ * The `replay.mode` is either:
+ * <ul>
+ * <li>`original`: the quotes are sent with the delays between their timestamps</li>
+ * <li>`scaled`: the delays are divided by `replay.speed` (10 to replay 10 times faster)</li>
+ * <li>`fast`: the quotes are sent as fast as possible, by chunks so the verticle does not monopolize its thread</li>
+ * </ul>
+ * It must be deployed as a worker verticle, as opening the segment files is blocking.
+ * <p>
+ * Configuration: `replay.directory` (default: `journal`), `replay.mode` (default: `original`) and `replay.speed`
+ * (default: 1).
+ */
+public class MarketDataReplayVerticle extends AbstractVerticle {
+
+  private static final int CHUNK = 1000;
+
+  private static final DeliveryOptions OPTIONS = new DeliveryOptions();
+
+  private JournalReader reader;
+  private double speed;
+
+  // The timestamp of the first quote, and the time at which it was sent
+  private long first;
+  private long begin;
+  private long count;
+
+  @Override
+  public void start() {
+    QuoteCodec.register(vertx);
+
+    File directory = new File(config().getString("replay.directory", "journal"));
+    if (!directory.isDirectory()) {
+      throw new IllegalArgumentException("No journal in " + directory.getAbsolutePath());
+    }
+    reader = new JournalReader(directory);
+
+    String mode = config().getString("replay.mode", "original");
+    switch (mode) {
+      case "original":
+        speed = 1;
+        break;
+      case "scaled":
+        speed = config().getDouble("replay.speed", 1.0);
+        if (speed <= 0) {
+          throw new IllegalArgumentException("Invalid replay speed: " + speed);
+        }
+        break;
+      case "fast":
+        speed = 0;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown replay mode: " + mode);
+    }
+
+    vertx.runOnContext(v -> {
+      begin = System.nanoTime();
+      if (next()) {
+        first = reader.timestamp();
+        run();
+      }
+    });
+  }
+
+  @Override
+  public void stop() {
+    reader.close();
+  }
+
+  /**
+   * Sends the current quote and the next ones that are due (at most a chunk), then schedules the next run.
+   */
+  private void run() {
+    for (int i = 0; i < CHUNK; i++) {
+      long delay = speed == 0 ? 0 : delay();
+      if (delay > 0) {
+        vertx.setTimer(Math.max(1, TimeUnit.NANOSECONDS.toMillis(delay)), l -> run());
+        return;
+      }
+      publish(reader.quote());
+      if (!next()) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        System.out.println("Replay: " + count + " quotes sent in " + elapsed + " ms");
+        return;
+      }
+    }
+    vertx.runOnContext(v -> run());
+  }
+
+  /**
+   * @return the time in ns before the current quote is due
+   */
+  private long delay() {
+    long due = (long) ((reader.timestamp() - first) / speed);
+    return due - (System.nanoTime() - begin);
+  }
+
+  private void publish(Quote quote) {
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote, OPTIONS);
+    vertx.eventBus().publish(GeneratorConfigVerticle.address(quote.getSymbol()), quote, OPTIONS);
+    count++;
+  }
+
+  private boolean next() {
+    try {
+      return reader.next();
+    } catch (IOException e) {
+      System.err.println("Cannot read the journal: " + e.getMessage());
+      return false;
+    }
+  }
+}
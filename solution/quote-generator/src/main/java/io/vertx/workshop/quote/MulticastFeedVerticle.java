@@ -0,0 +1,62 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.MulticastQuoteReceiver;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import io.vertx.workshop.common.QuoteFeed;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A verticle sending the quotes emitted on the `market` address by this node as datagrams to a multicast group (see
+ * {@link QuoteFeed}). Unlike the clustered event bus, which sends each quote to every node, the cost of the sender does
+ * not depend on the number of receivers. The {@link MulticastQuoteReceiver} publishes the received quotes on the event
+ * bus of the receiving node.
+ * <p>
+ * The datagrams are not acknowledged: the receivers detect the lost ones using the sequence numbers.
+ */
+public class MulticastFeedVerticle extends AbstractVerticle {
+
+  private final int source = ThreadLocalRandom.current().nextInt();
+  private long seq;
+
+  private DatagramSocket socket;
+
+  @Override
+  public void start() {
+    JsonObject config = config();
+    String group = config.getString("multicast.group", QuoteFeed.DEFAULT_GROUP);
+    int port = config.getInteger("multicast.port", QuoteFeed.DEFAULT_PORT);
+
+    QuoteCodec.register(vertx);
+
+    DatagramSocketOptions options = new DatagramSocketOptions()
+        .setIpV6(false)
+        .setMulticastTimeToLive(config.getInteger("multicast.ttl", 1))
+        // So the receivers running on the same host get the datagrams
+        .setLoopbackModeDisabled(false);
+    String networkInterface = config.getString("multicast.interface");
+    if (networkInterface != null) {
+      options.setMulticastNetworkInterface(networkInterface);
+    }
+    socket = vertx.createDatagramSocket(options);
+
+    // Only the quotes emitted by this node are sent.
+    vertx.eventBus().<Quote>localConsumer(GeneratorConfigVerticle.ADDRESS, message ->
+        socket.send(QuoteFeed.encode(source, ++seq, message.body()), port, group, ar -> {
+          if (ar.failed()) {
+            System.err.println("Cannot send the quote to the multicast group: " + ar.cause().getMessage());
+          }
+        }));
+  }
+
+  @Override
+  public void stop(Future<Void> future) {
+    socket.close(future);
+  }
+}
@@ -0,0 +1,250 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A TCP server streaming the quotes to the clients that cannot use the event bus, as binary frames.
+ * <p>
+ * Each frame is made of its length (int, not including itself), its type (byte) and a payload:
+ * <ul>
+ * <li>{@link #SUBSCRIBE} (client to server): the payload is a list of symbols (unsigned short length, UTF-8 bytes),
+ * `*` to subscribe to all the companies</li>
+ * <li>{@link #UNSUBSCRIBE} (client to server): same payload, `*` to unsubscribe from all the companies</li>
+ * <li>{@link #QUOTE} (server to client): the payload is a quote, using the {@link QuoteCodec} layout</li>
+ * </ul>
+ * Each quote is encoded once, whatever the number of subscribers. When the write queue of a client is full, the
+ * quotes are not written anymore: only the last quote of each company is kept, and sent once the queue is drained, so
+ * a slow client does not use more memory than the number of companies.
+ */
+public class QuoteGatewayVerticle extends AbstractVerticle {
+
+  /**
+   * The type of the subscribe frames.
+   */
+  public static final byte SUBSCRIBE = 1;
+
+  /**
+   * The type of the unsubscribe frames.
+   */
+  public static final byte UNSUBSCRIBE = 2;
+
+  /**
+   * The type of the quote frames.
+   */
+  public static final byte QUOTE = 3;
+
+  /**
+   * The symbol used to subscribe to all the companies.
+   */
+  public static final String ALL = "*";
+
+  private static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+  private final Map<String, Set<Subscriber>> subscribers = new HashMap<>();
+  private final Set<Subscriber> all = new HashSet<>();
+
+  private NetServer server;
+
+  @Override
+  public void start(Future<Void> future) {
+    QuoteCodec.register(vertx);
+
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> dispatch(message.body()));
+
+    server = vertx.createNetServer(new NetServerOptions().setTcpNoDelay(true));
+    server.connectHandler(this::connect)
+        .listen(config().getInteger("gateway.port", 35300), ar -> {
+          if (ar.failed()) {
+            future.fail(ar.cause());
+          } else {
+            future.complete();
+          }
+        });
+  }
+
+  @Override
+  public void stop(Future<Void> future) {
+    server.close(future);
+  }
+
+  /**
+   * Builds a frame.
+   *
+   * @param type    the type of frame
+   * @param symbols the symbols, for the subscribe and unsubscribe frames
+   * @return the frame
+   */
+  public static Buffer frame(byte type, String... symbols) {
+    Buffer buffer = Buffer.buffer().appendInt(0).appendByte(type);
+    for (String symbol : symbols) {
+      byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > 0xFFFF) {
+        throw new IllegalArgumentException("The symbol is too long: " + bytes.length + " bytes");
+      }
+      buffer.appendUnsignedShort(bytes.length).appendBytes(bytes);
+    }
+    return buffer.setInt(0, buffer.length() - 4);
+  }
+
+  private static List<String> symbols(Buffer frame) {
+    List<String> symbols = new ArrayList<>();
+    int pos = 1;
+    while (pos < frame.length()) {
+      int length = frame.getUnsignedShort(pos);
+      if (pos + 2 + length > frame.length()) {
+        throw new IllegalArgumentException("Truncated symbol");
+      }
+      symbols.add(frame.getString(pos + 2, pos + 2 + length, "UTF-8"));
+      pos += 2 + length;
+    }
+    return symbols;
+  }
+
+  private void connect(NetSocket socket) {
+    Subscriber subscriber = new Subscriber(socket);
+
+    RecordParser parser = RecordParser.newFixed(4, null);
+    parser.setOutput(new Handler<Buffer>() {
+      int length = -1;
+
+      @Override
+      public void handle(Buffer buffer) {
+        if (length == -1) {
+          length = buffer.getInt(0);
+          if (length <= 0 || length > MAX_FRAME_LENGTH) {
+            socket.close();
+            return;
+          }
+          parser.fixedSizeMode(length);
+        } else {
+          receive(subscriber, buffer);
+          length = -1;
+          parser.fixedSizeMode(4);
+        }
+      }
+    });
+
+    socket.handler(parser);
+    socket.closeHandler(v -> unsubscribe(subscriber, subscriber.symbols.toArray(new String[0])));
+  }
+
+  private void receive(Subscriber subscriber, Buffer frame) {
+    try {
+      switch (frame.getByte(0)) {
+        case SUBSCRIBE:
+          subscribe(subscriber, symbols(frame));
+          break;
+        case UNSUBSCRIBE:
+          unsubscribe(subscriber, symbols(frame).toArray(new String[0]));
+          break;
+        default:
+          subscriber.socket.close();
+      }
+    } catch (RuntimeException e) {
+      // Malformed frame, whatever the decoding failure
+      subscriber.socket.close();
+    }
+  }
+
+  private void subscribe(Subscriber subscriber, List<String> symbols) {
+    for (String symbol : symbols) {
+      subscriber.symbols.add(symbol);
+      if (ALL.equals(symbol)) {
+        all.add(subscriber);
+      } else {
+        subscribers.computeIfAbsent(symbol, s -> new HashSet<>()).add(subscriber);
+      }
+    }
+  }
+
+  private void unsubscribe(Subscriber subscriber, String... symbols) {
+    for (String symbol : symbols) {
+      subscriber.symbols.remove(symbol);
+      if (ALL.equals(symbol)) {
+        all.remove(subscriber);
+      } else {
+        Set<Subscriber> set = subscribers.get(symbol);
+        if (set != null) {
+          set.remove(subscriber);
+          if (set.isEmpty()) {
+            subscribers.remove(symbol);
+          }
+        }
+      }
+    }
+  }
+
+  private void dispatch(Quote quote) {
+    Set<Subscriber> set = subscribers.get(quote.getSymbol());
+    if (all.isEmpty() && set == null) {
+      return;
+    }
+
+    // Encoded once for all the subscribers
+    Buffer frame = Buffer.buffer(64).appendInt(0).appendByte(QUOTE);
+    QuoteCodec.write(frame, quote);
+    frame.setInt(0, frame.length() - 4);
+
+    for (Subscriber subscriber : all) {
+      subscriber.send(quote, frame);
+    }
+    if (set != null) {
+      for (Subscriber subscriber : set) {
+        // Already sent if also subscribed to all the companies
+        if (!all.contains(subscriber)) {
+          subscriber.send(quote, frame);
+        }
+      }
+    }
+  }
+
+  /**
+   * A connected client.
+   */
+  private static class Subscriber {
+    private final NetSocket socket;
+    private final Set<String> symbols = new HashSet<>();
+    // The last quotes of the companies, kept while the write queue is full
+    private final Map<String, Buffer> pending = new LinkedHashMap<>();
+
+    Subscriber(NetSocket socket) {
+      this.socket = socket;
+      socket.drainHandler(v -> drain());
+    }
+
+    void send(Quote quote, Buffer frame) {
+      if (pending.isEmpty() && !socket.writeQueueFull()) {
+        socket.write(frame);
+      } else {
+        pending.put(quote.getSymbol(), frame);
+      }
+    }
+
+    private void drain() {
+      Iterator<Buffer> iterator = pending.values().iterator();
+      while (iterator.hasNext() && !socket.writeQueueFull()) {
+        socket.write(iterator.next());
+        iterator.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.Json;
+import io.vertx.workshop.common.Quote;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The store of the last quote of each company, shared by the {@link RestQuoteAPIVerticle} instances.
+ * <p>
+ * The store is updated by a single consumer of the `market` address (see {@link #listen(Vertx)}), and read without
+ * locks from any thread: each quote is stored as an immutable {@link CachedQuote} containing its encoded forms, and the
+ * representation of the whole map is rebuilt by the readers when it is older than the current version.
+ * <p>
+ * The store also keeps the history of the last quotes of each company (see {@link TickHistory}).
+ * <p>
+ * Listeners can be registered to be notified of the new quotes on their own context.
+ */
+public class QuoteStore {
+
+  private final Map<String, CachedQuote> quotes = new ConcurrentHashMap<>();
+  private final Map<String, TickHistory> histories = new ConcurrentHashMap<>();
+  private final int historySize;
+  private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  private volatile long version;
+  private volatile Snapshot snapshot;
+
+  /**
+   * Part of the ETags, to avoid reusing the tags of a previous instance.
+   */
+  private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+  /**
+   * Creates a new instance of {@link QuoteStore} keeping the last 1024 quotes of each company.
+   */
+  public QuoteStore() {
+    this(1024);
+  }
+
+  /**
+   * Creates a new instance of {@link QuoteStore}.
+   *
+   * @param historySize the number of quotes to keep for each company, 0 to disable the history
+   */
+  public QuoteStore(int historySize) {
+    this.historySize = historySize;
+  }
+
+  /**
+   * Registers the consumer updating the store. It must be called once, the consumer is bound to the current context.
+   *
+   * @param vertx the Vert.x instance
+   * @return the consumer
+   */
+  public MessageConsumer<Quote> listen(Vertx vertx) {
+    return vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> update(message.body()));
+  }
+
+  /**
+   * Stores a new quote. Only called by the (single) consumer.
+   *
+   * @param quote the quote
+   */
+  void update(Quote quote) {
+    CachedQuote previous = quotes.get(quote.getName());
+    CachedQuote cached = new CachedQuote(quote, previous == null ? 1 : previous.version + 1);
+    quotes.put(quote.getName(), cached);
+    version++;
+
+    if (historySize > 0) {
+      histories.computeIfAbsent(quote.getName(), name -> new TickHistory(historySize))
+          .add(System.currentTimeMillis(), quote);
+    }
+
+    for (Listener listener : listeners) {
+      listener.context.runOnContext(v -> listener.handler.handle(cached));
+    }
+  }
+
+  /**
+   * @param name the name of the company
+   * @return the last quote of the company, {@code null} if none
+   */
+  public CachedQuote get(String name) {
+    return quotes.get(name);
+  }
+
+  /**
+   * @param name the name of the company
+   * @return the history of the company, {@code null} if none
+   */
+  TickHistory history(String name) {
+    return histories.get(name);
+  }
+
+  /**
+   * @return the last quote of all the companies
+   */
+  public Iterable<CachedQuote> all() {
+    return quotes.values();
+  }
+
+  /**
+   * @return the JSON representation of the map name -> quote, rebuilt from the encoded quotes if one of them has
+   * changed since the last call.
+   */
+  public Snapshot snapshot() {
+    long current = version;
+    Snapshot last = snapshot;
+    if (last == null || last.version != current) {
+      Buffer buffer = Buffer.buffer().appendString("{");
+      for (CachedQuote quote : quotes.values()) {
+        if (buffer.length() > 1) {
+          buffer.appendString(",");
+        }
+        buffer.appendString(Json.encode(quote.name)).appendString(":").appendBuffer(quote.json);
+      }
+      last = new Snapshot(current, buffer.appendString("}"), tag(current));
+      snapshot = last;
+    }
+    return last;
+  }
+
+  /**
+   * Registers a handler called on the current context for each new quote.
+   *
+   * @param vertx   the Vert.x instance
+   * @param handler the handler
+   * @return an object to pass to {@link #removeListener(Object)}
+   */
+  public Object addListener(Vertx vertx, Handler<CachedQuote> handler) {
+    Listener listener = new Listener(vertx.getOrCreateContext(), handler);
+    listeners.add(listener);
+    return listener;
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener the object returned by {@link #addListener(Vertx, Handler)}
+   */
+  public void removeListener(Object listener) {
+    listeners.remove(listener);
+  }
+
+  private String tag(long version) {
+    return "\"" + epoch + "-" + Long.toHexString(version) + "\"";
+  }
+
+  /**
+   * The encoded representations and tag of the last quote of a company.
+   */
+  public class CachedQuote {
+    final String name;
+    final long version;
+    final Buffer json;
+    final String tag;
+    final Buffer event;
+
+    private CachedQuote(Quote quote, long version) {
+      this.name = quote.getName();
+      this.version = version;
+      String encoded = quote.toJson().encode();
+      this.json = Buffer.buffer(encoded);
+      this.tag = tag(version);
+      this.event = Buffer.buffer("data: " + encoded + "\n\n");
+    }
+  }
+
+  /**
+   * The encoded representation and tag of the whole map.
+   */
+  public class Snapshot {
+    final long version;
+    final Buffer json;
+    final String tag;
+
+    private Snapshot(long version, Buffer json, String tag) {
+      this.version = version;
+      this.json = json;
+      this.tag = tag;
+    }
+  }
+
+  private static class Listener {
+    private final Context context;
+    private final Handler<CachedQuote> handler;
+
+    private Listener(Context context, Handler<CachedQuote> handler) {
+      this.context = context;
+      this.handler = handler;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Server-Sent Events connection receiving the quotes.
+ * <p>
+ * The events are written as long as the write queue of the response is not full. When it is full, only the last event
+ * of each company is kept, and sent when the queue is drained. So, a slow client does not receive every quote, but
+ * always ends up with the last ones.
+ */
+class QuoteStream {
+
+  private final HttpServerResponse response;
+  private final Set<String> names;
+  private final Map<String, Buffer> pending = new LinkedHashMap<>();
+
+  /**
+   * Creates a new instance of {@link QuoteStream}, and sends the headers.
+   *
+   * @param response the response
+   * @param names    the names of the companies to send, {@code null} for all
+   */
+  QuoteStream(HttpServerResponse response, Set<String> names) {
+    this.response = response;
+    this.names = names;
+    response
+        .setChunked(true)
+        .putHeader("Content-Type", "text/event-stream")
+        .putHeader("Cache-Control", "no-cache")
+        .putHeader("Connection", "keep-alive")
+        .drainHandler(v -> drain());
+  }
+
+  /**
+   * @return the names of the companies to send, {@code null} for all
+   */
+  Set<String> names() {
+    return names;
+  }
+
+  /**
+   * Sends an event, or keeps it until the write queue is drained.
+   *
+   * @param name  the name of the company
+   * @param event the encoded event
+   */
+  void send(String name, Buffer event) {
+    if (pending.isEmpty() && !response.writeQueueFull()) {
+      response.write(event);
+    } else {
+      pending.put(name, event);
+      drain();
+    }
+  }
+
+  private void drain() {
+    while (!pending.isEmpty() && !response.writeQueueFull()) {
+      String name = pending.keySet().iterator().next();
+      response.write(pending.remove(name));
+    }
+  }
+}
@@ -1,34 +1,87 @@
 package io.vertx.workshop.quote;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.QuoteCodec;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This verticle exposes a HTTP endpoint to retrieve the current / last values of the maker data (quotes).
+ * <p>
+ * The responses are encoded when the quotes are received (and not for each request) by the {@link QuoteStore}: it
+ * keeps the (compact) JSON representation of the last quote of each company, and the representation of the whole map,
+ * rebuilt lazily when one of the quotes has changed.
+ * <p>
+ * Each quote has a version, incremented when a new quote is received for the company, and the whole map has a global
+ * version. They are used to compute strong `ETag`s, so clients sending an up to date `If-None-Match` header get a
+ * `304 Not Modified` response without content.
+ * <p>
+ * The quotes can also be streamed using Server-Sent Events on `/stream` (optionally restricted to some companies with
+ * the `names` parameter, a comma-separated list of names). The last quote of each requested company is sent first,
+ * followed by the new quotes as they are received.
+ * <p>
+ * Several quotes can be retrieved in a single request, using the `names` parameter (a comma-separated list of names)
+ * or a `POST` request containing a JSON array of names.
+ * <p>
+ * The last quotes of a company (see {@link TickHistory}) are available on `/?name=X&from=...&to=...`.
+ * <p>
+ * When the {@link CandleVerticle} is deployed, the last bars of a company are available on
+ * `/candles?name=X&interval=1m&count=N`.
+ * <p>
+ * Several instances can share the same store (see {@link #RestQuoteAPIVerticle(QuoteStore)}) and the same port, so the
+ * requests are served by several event loops. Without store, the verticle creates its own.
  *
  * @author <a href="http://escoffier.me">Clement Escoffier</a>
  */
 public class RestQuoteAPIVerticle extends AbstractVerticle {
 
-  private Map<String, JsonObject> quotes = new HashMap<>();
+  private QuoteStore store;
+  private boolean shared;
+
+  private Set<QuoteStream> streams = new LinkedHashSet<>();
+  private Map<String, Set<QuoteStream>> streamsByName = new HashMap<>();
+  private Object listener;
+
+  public RestQuoteAPIVerticle() {
+    this(null);
+  }
+
+  /**
+   * Creates a new instance of {@link RestQuoteAPIVerticle} reading the quotes from the given store. The store must be
+   * updated by the caller (see {@link QuoteStore#listen(io.vertx.core.Vertx)}).
+   *
+   * @param store the store, {@code null} to let the verticle create its own store
+   */
+  public RestQuoteAPIVerticle(QuoteStore store) {
+    this.store = store;
+    this.shared = store != null;
+  }
 
   @Override
   public void start() throws Exception {
-    vertx.eventBus().<JsonObject>consumer(GeneratorConfigVerticle.ADDRESS, message -> {
-      // Populate the `quotes` map with the received quote
-      // Quotes are json objects you can retrieve from the message body
-      // The map is structured as follows: name -> quote
-
-      // ----
-      JsonObject quote = message.body();
-      quotes.put(quote.getString("name"), quote);
-      // ----
-    });
+    QuoteCodec.register(vertx);
+
+    if (!shared) {
+      // Populate the store with the received quotes
+      store = new QuoteStore(config().getInteger("history.size", 1024));
+      store.listen(vertx);
+    }
 
     // Create a HTTP server that returns the quotes
     // The request handler returns a specific quote if the `name` parameter is set, or the whole map if none.
@@ -39,22 +92,50 @@ public class RestQuoteAPIVerticle extends AbstractVerticle {
 
     vertx.createHttpServer()
         .requestHandler(request -> {
+          if ("/stream".equals(request.path())) {
+            stream(request);
+            return;
+          }
+          if ("/candles".equals(request.path())) {
+            candles(request);
+            return;
+          }
+
           HttpServerResponse response = request.response()
               .putHeader("content-type", "application/json");
 
+          if (request.method() == HttpMethod.POST) {
+            // The body is a JSON array of names
+            request.bodyHandler(body -> {
+              JsonArray names;
+              try {
+                names = body.toJsonArray();
+              } catch (DecodeException | ClassCastException e) {
+                response.setStatusCode(400).end();
+                return;
+              }
+              response.end(select(names.getList()));
+            });
+            return;
+          }
+          if (request.getParam("names") != null) {
+            response.end(select(Arrays.asList(request.getParam("names").split(","))));
+            return;
+          }
+
           // ----
           String company = request.getParam("name");
-          if (company == null) {
-            String content = Json.encodePrettily(quotes);
-            response
-                .end(content);
+          if (company != null && (request.getParam("from") != null || request.getParam("to") != null)) {
+            history(request, company);
+          } else if (company == null) {
+            QuoteStore.Snapshot snapshot = store.snapshot();
+            end(request, snapshot.tag, snapshot.json);
           } else {
-            JsonObject quote = quotes.get(company);
+            QuoteStore.CachedQuote quote = store.get(company);
             if (quote == null) {
               response.setStatusCode(404).end();
             } else {
-              response
-                  .end(quote.encodePrettily());
+              end(request, quote.tag, quote.json);
             }
           }
 
@@ -68,4 +149,196 @@ public class RestQuoteAPIVerticle extends AbstractVerticle {
           }
         });
   }
+
+  @Override
+  public void stop() {
+    if (listener != null) {
+      store.removeListener(listener);
+      listener = null;
+    }
+  }
+
+  /**
+   * Dispatches a new quote to the streams. Called on the context of this verticle.
+   *
+   * @param quote the quote
+   */
+  private void dispatch(QuoteStore.CachedQuote quote) {
+    streams.forEach(stream -> stream.send(quote.name, quote.event));
+    Set<QuoteStream> subscribers = streamsByName.get(quote.name);
+    if (subscribers != null) {
+      subscribers.forEach(stream -> stream.send(quote.name, quote.event));
+    }
+  }
+
+  /**
+   * Builds the JSON representation of the map name -> quote of the requested companies, from the encoded quotes.
+   * The unknown companies are ignored.
+   *
+   * @param names the names of the companies
+   * @return the content
+   */
+  private Buffer select(List<?> names) {
+    Buffer buffer = Buffer.buffer().appendString("{");
+    Set<Object> done = new HashSet<>();
+    for (Object name : names) {
+      QuoteStore.CachedQuote quote = name instanceof String ? store.get((String) name) : null;
+      if (quote != null && done.add(name)) {
+        if (buffer.length() > 1) {
+          buffer.appendString(",");
+        }
+        buffer.appendString(Json.encode(quote.name)).appendString(":").appendBuffer(quote.json);
+      }
+    }
+    return buffer.appendString("}");
+  }
+
+  /**
+   * Returns the quotes of a company received between `from` and `to` (inclusive, in ms since the epoch).
+   *
+   * @param request the request
+   * @param company the name of the company
+   */
+  private void history(HttpServerRequest request, String company) {
+    HttpServerResponse response = request.response();
+    long from;
+    long to;
+    try {
+      from = request.getParam("from") == null ? 0 : Long.parseLong(request.getParam("from"));
+      to = request.getParam("to") == null ? Long.MAX_VALUE : Long.parseLong(request.getParam("to"));
+    } catch (NumberFormatException e) {
+      response.setStatusCode(400).end();
+      return;
+    }
+    TickHistory history = store.history(company);
+    if (history == null) {
+      response.setStatusCode(404).end();
+    } else {
+      response.end(history.range(from, to).encode());
+    }
+  }
+
+  /**
+   * Returns the last bars of a company, retrieved from the {@link CandleVerticle}.
+   *
+   * @param request the request, with the `name`, `interval` and `count` parameters
+   */
+  private void candles(HttpServerRequest request) {
+    HttpServerResponse response = request.response();
+    String name = request.getParam("name");
+    String interval = request.getParam("interval");
+    if (name == null || interval == null) {
+      response.setStatusCode(400).end();
+      return;
+    }
+    JsonObject query = new JsonObject().put("name", name).put("interval", interval);
+    String count = request.getParam("count");
+    if (count != null) {
+      try {
+        query.put("count", Integer.parseInt(count));
+      } catch (NumberFormatException e) {
+        response.setStatusCode(400).end();
+        return;
+      }
+    }
+    vertx.eventBus().<JsonArray>send(CandleVerticle.ADDRESS, query, reply -> {
+      if (reply.failed()) {
+        // No handler: the candles are not enabled.
+        ReplyException failure = (ReplyException) reply.cause();
+        response.setStatusCode(failure.failureType() == ReplyFailure.RECIPIENT_FAILURE ? failure.failureCode() : 404)
+            .end();
+      } else {
+        response.putHeader("content-type", "application/json").end(reply.result().body().encode());
+      }
+    });
+  }
+
+  /**
+   * Opens a Server-Sent Events stream, sends the last quotes and registers the stream to receive the new ones.
+   *
+   * @param request the request
+   */
+  private void stream(HttpServerRequest request) {
+    String param = request.getParam("names");
+    Set<String> names = null;
+    if (param != null) {
+      names = new LinkedHashSet<>(Arrays.asList(param.split(",")));
+    }
+    QuoteStream stream = new QuoteStream(request.response(), names);
+
+    // The store is only listened while streams are open, and before reading the last quotes to not miss any update.
+    if (listener == null) {
+      listener = store.addListener(vertx, this::dispatch);
+    }
+
+    if (names == null) {
+      store.all().forEach(quote -> stream.send(quote.name, quote.event));
+      streams.add(stream);
+    } else {
+      for (String name : names) {
+        QuoteStore.CachedQuote quote = store.get(name);
+        if (quote != null) {
+          stream.send(name, quote.event);
+        }
+        streamsByName.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(stream);
+      }
+    }
+
+    request.response().closeHandler(v -> {
+      streams.remove(stream);
+      if (stream.names() != null) {
+        for (String name : stream.names()) {
+          Set<QuoteStream> set = streamsByName.get(name);
+          set.remove(stream);
+          if (set.isEmpty()) {
+            streamsByName.remove(name);
+          }
+        }
+      }
+      if (streams.isEmpty() && streamsByName.isEmpty() && listener != null) {
+        store.removeListener(listener);
+        listener = null;
+      }
+    });
+  }
+
+  /**
+   * Writes the response, or a `304 Not Modified` response if the client already has the current version.
+   *
+   * @param request the request
+   * @param tag     the ETag of the content
+   * @param content the content
+   */
+  private void end(HttpServerRequest request, String tag, Buffer content) {
+    HttpServerResponse response = request.response().putHeader("ETag", tag);
+    if (matches(request.getHeader("If-None-Match"), tag)) {
+      response.setStatusCode(304).end();
+    } else {
+      response.end(content);
+    }
+  }
+
+  /**
+   * Checks whether the given `If-None-Match` header matches the tag. As required for `If-None-Match`, the weak
+   * comparison is used.
+   *
+   * @param header the header, may be {@code null}
+   * @param tag    the current tag
+   * @return {@code true} if the header matches
+   */
+  static boolean matches(String header, String tag) {
+    if (header == null) {
+      return false;
+    }
+    for (String candidate : header.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
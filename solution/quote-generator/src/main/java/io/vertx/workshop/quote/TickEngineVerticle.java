@@ -0,0 +1,143 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.QuoteCodec;
+
+import java.util.Arrays;
+
+/**
+ * A verticle driving the market data of a set of companies (a shard) from a single timer.
+ * <p>
+ * Instead of one {@link MarketDataVerticle} (and one periodic timer) per company, the shard keeps the state of all
+ * its companies and schedules them using a hashed timer wheel: a single periodic timer advances the wheel every
+ * `resolution` ms, and only the companies stored in the current slot are checked. The `period` of each company is
+ * rounded up to a multiple of the resolution.
+ * <p>
+ * The state and the computation of each company is provided by a {@link CompanyGenerator}.
+ * <p>
+ * When `fast-forward` is set, the wheel is not used: the shard emits this number of quotes for each company, as fast
+ * as possible, one company after the other.
+ */
+public class TickEngineVerticle extends AbstractVerticle {
+
+  /**
+   * The minimal resolution of the wheel when not configured.
+   */
+  static final long MIN_RESOLUTION = 10;
+
+  private static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private CompanyGenerator[] companies;
+  private long[] periods;
+  private long[] deadlines;
+
+  private final int[][] slots = new int[WHEEL_SIZE][];
+  private final int[] slotSizes = new int[WHEEL_SIZE];
+
+  long resolution;
+  private long tick;
+
+  private long fastForward;
+
+  @Override
+  public void start() {
+    init(config());
+
+    // Quotes are sent using a binary codec, it needs to be registered.
+    QuoteCodec.register(vertx);
+
+    if (fastForward > 0) {
+      new FastForward(vertx, "tick engine", () -> {
+        for (CompanyGenerator company : companies) {
+          company.compute();
+          company.publish(vertx);
+        }
+      }, fastForward).start();
+      return;
+    }
+
+    vertx.setPeriodic(resolution, l -> advance());
+  }
+
+  /**
+   * Reads the configuration and schedules the companies in the wheel.
+   *
+   * @param config the configuration, containing the `companies` of the shard and optionally the `resolution` and
+   *               `fast-forward`
+   */
+  void init(JsonObject config) {
+    JsonArray array = config.getJsonArray("companies", new JsonArray());
+    companies = new CompanyGenerator[array.size()];
+    periods = new long[array.size()];
+    deadlines = new long[array.size()];
+    fastForward = config.getLong("fast-forward", 0L);
+
+    for (int i = 0; i < companies.length; i++) {
+      companies[i] = new CompanyGenerator(array.getJsonObject(i));
+    }
+
+    resolution = config.getLong("resolution", computeResolution());
+    for (int i = 0; i < companies.length; i++) {
+      periods[i] = Math.max(1, (companies[i].period + resolution - 1) / resolution);
+      deadlines[i] = periods[i];
+      schedule(i);
+    }
+  }
+
+  /**
+   * @return the gcd of the periods, but not less than {@link #MIN_RESOLUTION}.
+   */
+  private long computeResolution() {
+    long gcd = 0;
+    for (CompanyGenerator company : companies) {
+      gcd = gcd(gcd, company.period);
+    }
+    return Math.max(MIN_RESOLUTION, gcd);
+  }
+
+  private static long gcd(long a, long b) {
+    return b == 0 ? a : gcd(b, a % b);
+  }
+
+  /**
+   * Advances the wheel of one slot, and emits the quotes of the companies that are due.
+   */
+  void advance() {
+    tick++;
+    int slot = (int) (tick & WHEEL_MASK);
+    int[] entries = slots[slot];
+    int size = slotSizes[slot];
+    int kept = 0;
+    for (int j = 0; j < size; j++) {
+      int index = entries[j];
+      if (deadlines[index] <= tick) {
+        CompanyGenerator company = companies[index];
+        company.compute();
+        company.publish(vertx);
+
+        deadlines[index] += periods[index];
+        if ((deadlines[index] & WHEEL_MASK) != slot) {
+          schedule(index);
+          continue;
+        }
+      }
+      // Not due yet (next round) or due again in this slot.
+      entries[kept++] = index;
+    }
+    slotSizes[slot] = kept;
+  }
+
+  private void schedule(int index) {
+    int slot = (int) (deadlines[index] & WHEEL_MASK);
+    int[] entries = slots[slot];
+    if (entries == null) {
+      entries = slots[slot] = new int[4];
+    } else if (slotSizes[slot] == entries.length) {
+      entries = slots[slot] = Arrays.copyOf(entries, entries.length * 2);
+    }
+    entries[slotSizes[slot]++] = index;
+  }
+}
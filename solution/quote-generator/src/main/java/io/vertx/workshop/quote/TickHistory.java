@@ -0,0 +1,158 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Prices;
+import io.vertx.workshop.common.Quote;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The last quotes (ticks) of a company, stored in a ring buffer of columns (one primitive array per field, prices in
+ * ticks, see {@link Prices}), so a tick costs 28 bytes.
+ * <p>
+ * The history is written by a single thread and read from any thread. The readers copy the ticks under an optimistic
+ * read of a {@link StampedLock} (a seqlock), and retry if a tick has been written during the copy. An optimistic copy
+ * does not block the writer. After {@link #OPTIMISTIC_ATTEMPTS} failed attempts, the copy is done under the read lock,
+ * so a reader is not starved by a busy writer: the writer is then blocked for the duration of one copy.
+ */
+class TickHistory {
+
+  /**
+   * The number of optimistic copies attempted before taking the read lock.
+   */
+  private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+  private final long[] times;
+  private final long[] bids;
+  private final long[] asks;
+  private final int[] shares;
+
+  private final StampedLock lock = new StampedLock();
+
+  /**
+   * The number of ticks written since the creation, guarded by the lock.
+   */
+  private long count;
+
+  /**
+   * Creates a new instance of {@link TickHistory}.
+   *
+   * @param capacity the number of ticks to keep
+   */
+  TickHistory(int capacity) {
+    times = new long[capacity];
+    bids = new long[capacity];
+    asks = new long[capacity];
+    shares = new int[capacity];
+  }
+
+  /**
+   * Adds a tick, replacing the oldest one if the history is full. Only called by the (single) writer.
+   *
+   * @param time  the time of the quote
+   * @param quote the quote
+   */
+  void add(long time, Quote quote) {
+    long stamp = lock.writeLock();
+    try {
+      int index = (int) (count % times.length);
+      times[index] = time;
+      bids[index] = quote.getBidTicks();
+      asks[index] = quote.getAskTicks();
+      shares[index] = quote.getShares();
+      count++;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Retrieves the ticks received in the given time range.
+   *
+   * @param from the beginning of the range (inclusive)
+   * @param to   the end of the range (inclusive)
+   * @return the ticks, from the oldest to the most recent
+   */
+  JsonArray range(long from, long to) {
+    for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+        // The copy may be inconsistent, it is only used if no tick has been written meanwhile
+        Ticks ticks = copy(from, to);
+        if (lock.validate(stamp)) {
+          return ticks.toJson();
+        }
+      }
+    }
+
+    long stamp = lock.readLock();
+    try {
+      return copy(from, to).toJson();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private Ticks copy(long from, long to) {
+    int capacity = times.length;
+    long end = count;
+    long begin = Math.max(0, end - capacity);
+
+    // Find the first tick received at or after `from`.
+    long low = begin;
+    long high = end;
+    while (low < high) {
+      long mid = (low + high) >>> 1;
+      if (times[(int) (mid % capacity)] < from) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    Ticks ticks = new Ticks((int) (end - low));
+    for (long i = low; i < end; i++) {
+      int index = (int) (i % capacity);
+      if (times[index] > to) {
+        break;
+      }
+      ticks.times[ticks.size] = times[index];
+      ticks.bids[ticks.size] = bids[index];
+      ticks.asks[ticks.size] = asks[index];
+      ticks.shares[ticks.size] = shares[index];
+      ticks.size++;
+    }
+    return ticks;
+  }
+
+  /**
+   * A copy of some ticks, converted to JSON once validated.
+   */
+  private static class Ticks {
+    private final long[] times;
+    private final long[] bids;
+    private final long[] asks;
+    private final int[] shares;
+    private int size;
+
+    private Ticks(int capacity) {
+      times = new long[capacity];
+      bids = new long[capacity];
+      asks = new long[capacity];
+      shares = new int[capacity];
+    }
+
+    private JsonArray toJson() {
+      JsonArray array = new JsonArray();
+      for (int i = 0; i < size; i++) {
+        array.add(new JsonObject()
+            .put("time", times[i])
+            .put("bid", Prices.toDouble(bids[i]))
+            .put("ask", Prices.toDouble(asks[i]))
+            .put("shares", shares[i]));
+      }
+      return array;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package io.vertx.workshop.quote;
+
+/**
+ * Receives the ticks of a {@link CompanyGenerator} on the thread of the generator, without a
+ * {@link io.vertx.workshop.common.Quote} nor an event bus message (see {@link CompanyGenerator#publish(TickListener)}).
+ * <p>
+ * The generator itself is passed as a flyweight: its state changes on the next tick, so a listener reads the values it
+ * needs during the call, and must not keep the reference.
+ */
+@FunctionalInterface
+interface TickListener {
+
+  /**
+   * Called after each tick.
+   *
+   * @param company the generator, read only
+   */
+  void onTick(CompanyGenerator company);
+}
@@ -0,0 +1,114 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(VertxUnitRunner.class)
+public class CandleVerticleTest {
+
+  private static final int PORT = 35003;
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp(TestContext tc) {
+    vertx = Vertx.vertx();
+    QuoteCodec.register(vertx);
+    JsonObject config = new JsonObject()
+        .put("http.port", PORT)
+        .put("candles.intervals", new JsonArray().add("500ms"));
+    vertx.deployVerticle(CandleVerticle.class.getName(), new DeploymentOptions().setConfig(config),
+        tc.asyncAssertSuccess());
+    vertx.deployVerticle(RestQuoteAPIVerticle.class.getName(), new DeploymentOptions().setConfig(config),
+        tc.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testSeries() {
+    CandleSeries series = new CandleSeries("A", "A", "1s", 1000, 2);
+    assertThat(series.add(1000, 10.0)).isFalse();
+    assertThat(series.add(1200, 12.0)).isFalse();
+    assertThat(series.add(1500, 9.0)).isFalse();
+    assertThat(series.add(1999, 11.0)).isFalse();
+    assertThat(series.last()).isNull();
+
+    assertThat(series.add(2100, 20.0)).isTrue();
+    assertThat(series.last()).isEqualTo(new JsonObject().put("name", "A").put("symbol", "A").put("interval", "1s")
+        .put("start", 1000L).put("open", 10.0).put("high", 12.0).put("low", 9.0).put("close", 11.0)
+        .put("volume", 4L));
+
+    // No bar for the intervals without price, and only the last 2 bars are kept.
+    assertThat(series.add(5500, 30.0)).isTrue();
+    assertThat(series.closeIfDue(5999)).isFalse();
+    assertThat(series.closeIfDue(6000)).isTrue();
+    JsonArray bars = series.last(10);
+    assertThat(bars.size()).isEqualTo(2);
+    assertThat(bars.getJsonObject(0).getLong("start")).isEqualTo(2000L);
+    assertThat(bars.getJsonObject(1).getLong("start")).isEqualTo(5000L);
+  }
+
+  @Test
+  public void testIntervals() {
+    assertThat(CandleVerticle.parse("500ms")).isEqualTo(500);
+    assertThat(CandleVerticle.parse("1s")).isEqualTo(1000);
+    assertThat(CandleVerticle.parse("5m")).isEqualTo(5 * 60 * 1000);
+    assertThat(CandleVerticle.parse("1h")).isEqualTo(60 * 60 * 1000);
+  }
+
+  @Test
+  public void testPublishingAndRetrievingBars(TestContext tc) {
+    Async async = tc.async();
+    vertx.eventBus().<JsonObject>consumer(CandleVerticle.ADDRESS + ".500ms", message -> {
+      // The bar is closed by the timer, aligned on the end of the bar.
+      tc.assertTrue(System.currentTimeMillis() % 500 < 100);
+      JsonObject bar = message.body();
+      tc.assertEquals("A", bar.getString("name"));
+      tc.assertEquals(2L, bar.getLong("volume"));
+      tc.assertEquals(12.0, bar.getDouble("high"));
+
+      WebClient.create(vertx).get(PORT, "localhost", "/candles?name=A&interval=500ms&count=5")
+          .as(BodyCodec.jsonArray())
+          .send(tc.asyncAssertSuccess(resp -> {
+            tc.assertEquals(200, resp.statusCode());
+            tc.assertEquals(new JsonArray().add(bar), resp.body());
+            async.complete();
+          }));
+    });
+
+    // Send the quotes at the beginning of a bar, so they are in the same bar.
+    vertx.setTimer(500 - System.currentTimeMillis() % 500 + 5, l -> {
+      vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 10.0));
+      vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 12.0));
+    });
+  }
+
+  @Test
+  public void testUnknownInterval(TestContext tc) {
+    WebClient.create(vertx).get(PORT, "localhost", "/candles?name=A&interval=1s")
+        .send(tc.asyncAssertSuccess(resp -> tc.assertEquals(400, resp.statusCode())));
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
@@ -3,6 +3,9 @@ package io.vertx.workshop.quote;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.MessageSource;
+import io.vertx.workshop.common.Quote;
 import org.junit.Test;
 
 import java.io.File;
@@ -10,6 +13,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.jayway.awaitility.Awaitility.await;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,18 +31,18 @@ public class GeneratorConfigVerticleTest {
 
     Vertx vertx = Vertx.vertx();
 
-    List<JsonObject> mch = new ArrayList<>();
-    List<JsonObject> dvn = new ArrayList<>();
-    List<JsonObject> bct = new ArrayList<>();
+    List<Quote> mch = new ArrayList<>();
+    List<Quote> dvn = new ArrayList<>();
+    List<Quote> bct = new ArrayList<>();
 
     vertx.eventBus().consumer(GeneratorConfigVerticle.ADDRESS, message -> {
-      JsonObject quote = (JsonObject) message.body();
-      System.out.println(quote.encodePrettily());
-      assertThat(quote.getDouble("bid")).isGreaterThan(0);
-      assertThat(quote.getDouble("ask")).isGreaterThan(0);
-      assertThat(quote.getInteger("volume")).isGreaterThan(0);
-      assertThat(quote.getInteger("shares")).isGreaterThan(0);
-      switch (quote.getString("symbol")) {
+      Quote quote = (Quote) message.body();
+      System.out.println(quote.toJson().encodePrettily());
+      assertThat(quote.getBid()).isGreaterThan(0);
+      assertThat(quote.getAsk()).isGreaterThan(0);
+      assertThat(quote.getVolume()).isGreaterThan(0);
+      assertThat(quote.getShares()).isGreaterThan(0);
+      switch (quote.getSymbol()) {
         case "MCH":
           mch.add(quote);
           break;
@@ -57,4 +62,32 @@ public class GeneratorConfigVerticleTest {
     await().until(() -> bct.size() > 10);
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testPerSymbolSources() throws IOException {
+    byte[] bytes = Files.readAllBytes(new File("src/test/resources/config.json").toPath());
+    JsonObject config = new JsonObject(new String(bytes, "UTF-8")).put("http.port", 35004);
+
+    Vertx vertx = Vertx.vertx();
+    try {
+      vertx.deployVerticle(GeneratorConfigVerticle.class.getName(), new DeploymentOptions().setConfig(config));
+
+      JsonObject filter = new JsonObject().put("company", "Divinator");
+      ServiceDiscovery discovery = ServiceDiscovery.create(vertx);
+      // The sources are published asynchronously
+      AtomicBoolean published = new AtomicBoolean();
+      await().until(() -> {
+        discovery.getRecord(filter, ar -> published.set(ar.succeeded() && ar.result() != null));
+        return published.get();
+      });
+
+      List<Quote> received = new CopyOnWriteArrayList<>();
+      MessageSource.<Quote>getConsumer(discovery, filter, ar ->
+          ar.result().handler(message -> received.add(message.body())));
+      await().until(() -> received.size() > 5);
+
+      assertThat(received).extracting(Quote::getSymbol).containsOnly("DVN");
+    } finally {
+      vertx.close();
+    }
+  }
+}
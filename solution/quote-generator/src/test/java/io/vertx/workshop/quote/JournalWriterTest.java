@@ -0,0 +1,162 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(VertxUnitRunner.class)
+public class JournalWriterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testThatTheQuotesAreReadInOrderAcrossSegments() throws IOException {
+    File directory = folder.newFolder();
+    // About 20 records per segment
+    try (JournalWriter writer = new JournalWriter(directory, 1024)) {
+      for (int i = 0; i < 1000; i++) {
+        writer.append(i, quote(i % 2 == 0 ? "A" : "Bb", i));
+      }
+    }
+    assertThat(JournalReader.segments(directory).length).isGreaterThan(10);
+
+    try (JournalReader reader = new JournalReader(directory)) {
+      for (int i = 0; i < 1000; i++) {
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.timestamp()).isEqualTo(i);
+        Quote quote = reader.quote();
+        assertThat(quote.getSymbol()).isEqualTo(i % 2 == 0 ? "A" : "Bb");
+        assertThat(quote.getBid()).isEqualTo(i);
+        assertThat(quote.getAsk()).isEqualTo(i + 1);
+        assertThat(quote.getShares()).isEqualTo(500);
+      }
+      assertThat(reader.next()).isFalse();
+    }
+  }
+
+  @Test
+  public void testThatANewWriterAppendsNewSegments() throws IOException {
+    File directory = folder.newFolder();
+    try (JournalWriter writer = new JournalWriter(directory, 4096)) {
+      writer.append(quote("A", 1.0));
+    }
+    try (JournalWriter writer = new JournalWriter(directory, 4096)) {
+      writer.append(quote("A", 2.0));
+    }
+
+    try (JournalReader reader = new JournalReader(directory)) {
+      assertThat(reader.next()).isTrue();
+      long first = reader.timestamp();
+      assertThat(reader.quote().getBid()).isEqualTo(1.0);
+      assertThat(reader.next()).isTrue();
+      assertThat(reader.quote().getBid()).isEqualTo(2.0);
+      assertThat(reader.timestamp()).isGreaterThan(first);
+      assertThat(reader.next()).isFalse();
+    }
+  }
+
+  @Test
+  public void testThatATornRecordEndsTheJournal() throws IOException {
+    File directory = folder.newFolder();
+    // Symbol and name: "A"
+    int length = JournalWriter.HEADER + 2 + 1 + 2 + 1;
+    try (JournalWriter writer = new JournalWriter(directory, 4096)) {
+      writer.append(1, quote("A", 1.0));
+      writer.append(2, quote("A", 2.0));
+    }
+
+    // Simulate the death of the process while writing a third record: everything but the length is written
+    File segment = JournalReader.segments(directory)[0];
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      byte[] record = new byte[length];
+      file.seek(length);
+      file.readFully(record);
+      file.seek(2 * length + 4);
+      file.write(record, 4, length - 4);
+    }
+
+    assertThat(JournalReader.lastTimestamp(segment)).isEqualTo(2);
+    try (JournalReader reader = new JournalReader(directory)) {
+      assertThat(reader.next()).isTrue();
+      assertThat(reader.next()).isTrue();
+      assertThat(reader.quote().getBid()).isEqualTo(2.0);
+      assertThat(reader.next()).isFalse();
+    }
+  }
+
+  @Test
+  public void testThatAppendingDoesNotAllocate() throws IOException {
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+    long thread = Thread.currentThread().getId();
+
+    File directory = folder.newFolder();
+    Quote[] quotes = {quote("A", 1.0), quote("B", 2.0), quote("C", 3.0)};
+    int count = 100_000;
+    try (JournalWriter writer = new JournalWriter(directory, 64 * 1024 * 1024)) {
+      // Warm up, and cache the encoded names
+      for (int i = 0; i < count; i++) {
+        writer.append(quotes[i % quotes.length]);
+      }
+
+      long before = bean.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < count; i++) {
+        writer.append(quotes[i % quotes.length]);
+      }
+      // The measurement itself may allocate a few bytes
+      assertThat(bean.getThreadAllocatedBytes(thread) - before).isLessThan(1024);
+    }
+  }
+
+  @Test
+  public void testTheRecorder(TestContext tc) throws IOException {
+    File directory = folder.newFolder();
+    Vertx vertx = Vertx.vertx();
+    QuoteCodec.register(vertx);
+    Async async = tc.async();
+    JsonObject config = new JsonObject().put("recorder.directory", directory.getAbsolutePath());
+    vertx.deployVerticle(MarketDataRecorderVerticle.class.getName(),
+        new DeploymentOptions().setWorker(true).setConfig(config), tc.asyncAssertSuccess(id -> {
+      for (int i = 1; i <= 10; i++) {
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", i));
+      }
+      // The undeployment closes the writer once the quotes are recorded
+      vertx.setTimer(200, l -> vertx.close(tc.asyncAssertSuccess(v -> {
+        try (JournalReader reader = new JournalReader(directory)) {
+          int count = 0;
+          while (reader.next()) {
+            count++;
+            tc.assertEquals((double) count, reader.quote().getBid());
+          }
+          tc.assertEquals(10, count);
+        } catch (IOException e) {
+          tc.fail(e);
+        }
+        async.complete();
+      })));
+    }));
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
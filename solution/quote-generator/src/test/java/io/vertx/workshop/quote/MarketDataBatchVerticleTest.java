@@ -0,0 +1,72 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteBatch;
+import io.vertx.workshop.common.QuoteBatchCodec;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(VertxUnitRunner.class)
+public class MarketDataBatchVerticleTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp(TestContext tc) {
+    vertx = Vertx.vertx();
+    QuoteCodec.register(vertx);
+    vertx.deployVerticle(MarketDataBatchVerticle.class.getName(), new DeploymentOptions().setConfig(
+        new JsonObject().put("batch.size", 3).put("batch.window", 100)), tc.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testBatching(TestContext tc) {
+    Async async = tc.async();
+    List<QuoteBatch> batches = new ArrayList<>();
+    vertx.eventBus().<QuoteBatch>consumer(GeneratorConfigVerticle.BATCH_ADDRESS, message -> {
+      batches.add(message.body());
+      if (batches.size() == 3) {
+        // Two full batches, and the last one sent when the window elapsed
+        tc.assertEquals(3, batches.get(0).size());
+        tc.assertEquals(3, batches.get(1).size());
+        tc.assertEquals(1, batches.get(2).size());
+        tc.assertEquals("q0", batches.get(0).getQuotes().get(0).getName());
+        tc.assertEquals("q6", batches.get(2).getQuotes().get(0).getName());
+        async.complete();
+      }
+    }).completionHandler(v -> {
+      for (int i = 0; i < 7; i++) {
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, new Quote("Q", "q" + i, 1.0, 2.0, 100, 1.5, 50));
+      }
+    });
+  }
+
+  @Test
+  public void testBatchEncoding(TestContext tc) {
+    QuoteBatch batch = new QuoteBatch(
+        new Quote("A", "a", 1.0, 2.0, 100, 1.5, 50),
+        new Quote("B", "b", 3.0, 4.0, 200, 3.5, 150));
+    Buffer buffer = Buffer.buffer();
+    new QuoteBatchCodec().encodeToWire(buffer, batch);
+    QuoteBatch decoded = new QuoteBatchCodec().decodeFromWire(0, buffer);
+    tc.assertEquals(batch.toJson(), decoded.toJson());
+  }
+}
@@ -0,0 +1,44 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteDeltaDecoder;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MarketDataDeltaVerticleTest {
+
+  @Test
+  public void testDeltas() {
+    MarketDataDeltaVerticle verticle = new MarketDataDeltaVerticle();
+    QuoteDeltaDecoder decoder = new QuoteDeltaDecoder();
+
+    Quote first = new Quote("MCH", "MacroHard", 10.0, 11.0, 1000, 9.0, 500);
+    JsonObject keyframe = verticle.encode(first);
+    assertThat(keyframe.getBoolean("keyframe")).isTrue();
+    assertThat(keyframe.getLong("seq")).isEqualTo(1L);
+    assertThat(decoder.apply(keyframe).toJson()).isEqualTo(first.toJson());
+
+    Quote second = new Quote("MCH", "MacroHard", 12.0, 11.0, 1000, 9.0, 500);
+    JsonObject delta = verticle.encode(second);
+    assertThat(delta).isEqualTo(new JsonObject().put("symbol", "MCH").put("bid", 12.0).put("seq", 2L));
+    assertThat(delta.encode().length()).isLessThan(second.toJson().encode().length() / 2);
+    assertThat(decoder.apply(delta).toJson()).isEqualTo(second.toJson());
+  }
+
+  @Test
+  public void testThatMissingDeltasWaitForTheNextKeyframe() {
+    MarketDataDeltaVerticle verticle = new MarketDataDeltaVerticle();
+    QuoteDeltaDecoder decoder = new QuoteDeltaDecoder();
+
+    decoder.apply(verticle.encode(new Quote("MCH", "MacroHard", 10.0, 11.0, 1000, 9.0, 500)));
+    // Lost message
+    verticle.encode(new Quote("MCH", "MacroHard", 12.0, 11.0, 1000, 9.0, 500));
+    assertThat(decoder.apply(verticle.encode(new Quote("MCH", "MacroHard", 12.0, 13.0, 1000, 9.0, 500)))).isNull();
+    assertThat(decoder.apply(verticle.encode(new Quote("MCH", "MacroHard", 12.0, 14.0, 1000, 9.0, 500)))).isNull();
+
+    // A new company starts with a keyframe
+    assertThat(decoder.apply(verticle.encode(new Quote("DVN", "Divinator", 1.0, 2.0, 1000, 1.0, 10)))).isNotNull();
+  }
+}
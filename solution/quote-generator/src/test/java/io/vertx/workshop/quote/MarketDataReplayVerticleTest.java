@@ -0,0 +1,107 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(VertxUnitRunner.class)
+public class MarketDataReplayVerticleTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    QuoteCodec.register(vertx);
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  /**
+   * Records quotes of the given companies, alternatively.
+   */
+  private File record(int count, long interval, String... companies) throws IOException {
+    File directory = folder.newFolder();
+    try (JournalWriter writer = new JournalWriter(directory, 1024 * 1024)) {
+      for (int i = 0; i < count; i++) {
+        writer.append(1_000_000_000L + i * TimeUnit.MILLISECONDS.toNanos(interval),
+            quote(companies[i % companies.length], i));
+      }
+    }
+    return directory;
+  }
+
+  private void replay(TestContext tc, File directory, JsonObject config) {
+    vertx.deployVerticle(MarketDataReplayVerticle.class.getName(), new DeploymentOptions().setWorker(true)
+        .setConfig(config.put("replay.directory", directory.getAbsolutePath())), tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testFastReplay(TestContext tc) throws IOException {
+    File directory = record(10_000, 1000, "A", "B");
+    Async async = tc.async(10_000);
+    Async perCompany = tc.async(5_000);
+    int[] expected = {0};
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> {
+      tc.assertEquals((double) expected[0]++, message.body().getBid());
+      async.countDown();
+    });
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.address("B"), message -> perCompany.countDown());
+    replay(tc, directory, new JsonObject().put("replay.mode", "fast"));
+  }
+
+  @Test
+  public void testOriginalTiming(TestContext tc) throws IOException {
+    File directory = record(3, 200, "A");
+    Async async = tc.async(3);
+    long begin = System.nanoTime();
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> {
+      async.countDown();
+      if (async.count() == 0) {
+        tc.assertTrue(System.nanoTime() - begin >= TimeUnit.MILLISECONDS.toNanos(400));
+      }
+    });
+    replay(tc, directory, new JsonObject());
+  }
+
+  @Test
+  public void testScaledTiming(TestContext tc) throws IOException {
+    // 2 seconds of quotes, replayed in 200 ms
+    File directory = record(21, 100, "A");
+    Async async = tc.async(21);
+    long begin = System.nanoTime();
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> {
+      async.countDown();
+      if (async.count() == 0) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        tc.assertTrue(elapsed >= 200 && elapsed < 1500, "Replayed in " + elapsed + " ms");
+      }
+    });
+    replay(tc, directory, new JsonObject().put("replay.mode", "scaled").put("replay.speed", 10.0));
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
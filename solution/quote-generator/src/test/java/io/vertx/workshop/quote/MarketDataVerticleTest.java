@@ -1,8 +1,25 @@
 package io.vertx.workshop.quote;
 
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jayway.awaitility.Awaitility.await;
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -11,6 +28,8 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 public class MarketDataVerticleTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
 
   @Test
   public void testComputation() {
@@ -18,22 +37,181 @@ public class MarketDataVerticleTest {
         .put("name", "test")
         .put("symbol", "TT");
 
-    MarketDataVerticle verticle = new MarketDataVerticle();
-    verticle.init(json);
+    CompanyGenerator company = new CompanyGenerator(json);
 
-    int volume = verticle.stocks;
+    int volume = company.stocks;
 
-    assertThat(verticle.ask).isGreaterThan(0.0);
-    assertThat(verticle.bid).isGreaterThan(0.0);
-    assertThat(verticle.share).isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(volume);
+    assertThat(company.ask).isGreaterThan(0L);
+    assertThat(company.bid).isGreaterThan(0L);
+    assertThat(company.share).isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(volume);
 
     for (int i = 0; i < 1000000; i++) {
-      verticle.compute();
-      assertThat(verticle.ask).isGreaterThan(0.0);
-      assertThat(verticle.bid).isGreaterThan(0.0);
-      assertThat(verticle.share).isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(volume);
+      company.compute();
+      assertThat(company.ask).isGreaterThan(0L);
+      assertThat(company.bid).isGreaterThan(0L);
+      assertThat(company.share).isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(volume);
+    }
+
+  }
+
+  @Test
+  public void testSeededGeneration() {
+    JsonObject json = new JsonObject()
+        .put("name", "test")
+        .put("symbol", "TT")
+        .put("seed", 42L);
+
+    CompanyGenerator first = new CompanyGenerator(json);
+    CompanyGenerator second = new CompanyGenerator(json);
+
+    for (int i = 0; i < 1000; i++) {
+      first.compute();
+      second.compute();
+      assertThat(second.toQuote().toJson()).isEqualTo(first.toQuote().toJson());
+    }
+
+    CompanyGenerator other = new CompanyGenerator(json.copy().put("seed", 43L));
+    for (int i = 0; i < 1000; i++) {
+      other.compute();
     }
+    assertThat(other.toQuote().toJson()).isNotEqualTo(first.toQuote().toJson());
+  }
+
+  @Test
+  public void testFastForward() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      AtomicInteger count = new AtomicInteger();
+      vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message -> count.incrementAndGet());
+
+      vertx.deployVerticle(MarketDataVerticle.class.getName(), new DeploymentOptions().setConfig(new JsonObject()
+          .put("name", "test")
+          .put("period", 1000000L)
+          .put("fast-forward", 5000L)));
+
+      await().until(() -> count.get() == 5000);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  public void testThatTheTickPathOnlyAllocatesTheQuoteAndTheMessages() throws InterruptedException {
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+    Vertx vertx = Vertx.vertx();
+    try {
+      QuoteCodec.register(vertx);
+      // A local consumer, as the recorder, the REST API or the multicast feed
+      vertx.eventBus().localConsumer(GeneratorConfigVerticle.ADDRESS, message -> { });
+
+      CompanyGenerator company = new CompanyGenerator(new JsonObject().put("name", "test").put("seed", 42L));
+      int ticks = 100000;
+      long[] allocated = new long[2];
+      CountDownLatch latch = new CountDownLatch(1);
+      // Measured on the event loop, as the verticle
+      vertx.runOnContext(v -> {
+        long thread = Thread.currentThread().getId();
+        // Warm up
+        for (int i = 0; i < ticks; i++) {
+          company.compute();
+          company.publish(vertx);
+        }
+
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ticks; i++) {
+          company.compute();
+        }
+        allocated[0] = bean.getThreadAllocatedBytes(thread) - before;
+
+        before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ticks; i++) {
+          company.compute();
+          company.publish(vertx);
+        }
+        allocated[1] = (bean.getThreadAllocatedBytes(thread) - before) / ticks;
+        latch.countDown();
+      });
+      assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+
+      // The computation does not allocate (the measurement itself may allocate a few bytes). On the event bus, a tick
+      // allocates the quote (56 bytes), and the message objects of the two publications (about 350 bytes in total):
+      // see the pooled path below for the consumers that can avoid it.
+      assertThat(allocated[0]).isLessThan(1024);
+      assertThat(allocated[1]).isLessThanOrEqualTo(512);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  public void testThatThePooledTickPathDoesNotAllocate() throws IOException {
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+    long thread = Thread.currentThread().getId();
+
+    File directory = folder.newFolder();
+    CompanyGenerator company = new CompanyGenerator(new JsonObject().put("name", "test").put("seed", 42L));
+    int ticks = 100000;
+    long allocated;
+    // A consumer not keeping the quote, such as a journal
+    try (JournalWriter writer = new JournalWriter(directory, 32 * 1024 * 1024)) {
+      TickListener recorder = c -> {
+        try {
+          writer.append(c);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      };
+      // Warm up
+      for (int i = 0; i < ticks; i++) {
+        company.compute();
+        company.publish(recorder);
+      }
+
+      long before = bean.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < ticks; i++) {
+        company.compute();
+        company.publish(recorder);
+      }
+      allocated = bean.getThreadAllocatedBytes(thread) - before;
+    }
+    // The measurement itself may allocate a few bytes
+    assertThat(allocated).isLessThan(1024);
+
+    try (JournalReader reader = new JournalReader(directory)) {
+      int count = 0;
+      Quote last = null;
+      while (reader.next()) {
+        last = reader.quote();
+        count++;
+      }
+      assertThat(count).isEqualTo(2 * ticks);
+      assertThat(last.toJson()).isEqualTo(company.toQuote().toJson());
+    }
+  }
+
+  @Test
+  public void testQuoteEncoding() {
+    JsonObject json = new JsonObject()
+        .put("name", "test")
+        .put("symbol", "TT");
+
+    CompanyGenerator company = new CompanyGenerator(json);
+    company.compute();
+
+    Quote quote = company.toQuote();
+    Buffer buffer = Buffer.buffer().appendString("header");
+    new QuoteCodec().encodeToWire(buffer, quote);
+    assertThat(QuoteCodec.length(buffer, 6)).isEqualTo(buffer.length() - 6);
 
+    Quote decoded = new QuoteCodec().decodeFromWire(6, buffer);
+    assertThat(decoded.toJson()).isEqualTo(quote.toJson());
+    assertThat(QuoteCodec.asJson().decodeFromWire(6, buffer)).isEqualTo(quote.toJson());
+    assertThat(quote.toJson().getString("exchange")).isEqualTo(Quote.EXCHANGE);
   }
 
-}
\ No newline at end of file
+}
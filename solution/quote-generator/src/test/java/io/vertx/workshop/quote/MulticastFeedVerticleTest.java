@@ -0,0 +1,132 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.workshop.common.MulticastQuoteReceiver;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import io.vertx.workshop.common.QuoteFeed;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the quotes from a node to another one over the loopback interface.
+ */
+@RunWith(VertxUnitRunner.class)
+public class MulticastFeedVerticleTest {
+
+  private static final int PORT = 35201;
+
+  private Vertx sender;
+  private Vertx receiver;
+  private MulticastQuoteReceiver feed;
+  private JsonObject config;
+
+  @Before
+  public void setUp() throws Exception {
+    sender = Vertx.vertx();
+    receiver = Vertx.vertx();
+    QuoteCodec.register(sender);
+    config = new JsonObject()
+        .put("multicast.port", PORT)
+        .put("multicast.interface", "lo")
+        .put("multicast.target", "received");
+
+    // Multicast may not be available on the loopback interface of the host
+    feed = new MulticastQuoteReceiver();
+    CompletableFuture<Boolean> deployed = new CompletableFuture<>();
+    receiver.deployVerticle(feed, new DeploymentOptions().setConfig(config), ar -> deployed.complete(ar.succeeded()));
+    Assume.assumeTrue("Multicast is not available on the loopback interface", deployed.get(10, TimeUnit.SECONDS));
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    sender.close(tc.asyncAssertSuccess());
+    receiver.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testThatQuotesAreReceived(TestContext tc) {
+    Async async = tc.async();
+    List<Quote> received = new ArrayList<>();
+    receiver.eventBus().<Quote>consumer("received", message -> {
+      received.add(message.body());
+      if (received.size() == 3) {
+        tc.assertEquals("A", received.get(0).getName());
+        tc.assertEquals(3.0, received.get(2).getBid());
+        tc.assertEquals(0L, feed.lost());
+        async.complete();
+      }
+    });
+
+    sender.deployVerticle(MulticastFeedVerticle.class.getName(), new DeploymentOptions().setConfig(config),
+        tc.asyncAssertSuccess(id -> {
+          for (int i = 1; i <= 3; i++) {
+            sender.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", i));
+          }
+        }));
+  }
+
+  @Test
+  public void testThatGapsAreDetected(TestContext tc) {
+    Async async = tc.async();
+    List<Quote> received = new ArrayList<>();
+    receiver.eventBus().<Quote>consumer("received", message -> {
+      received.add(message.body());
+      if (received.size() == 2) {
+        // The datagrams 2 and 3 are lost, the duplicate 1 is ignored
+        tc.assertEquals(2L, feed.received());
+        tc.assertEquals(2L, feed.lost());
+        tc.assertEquals(4.0, received.get(1).getBid());
+        async.complete();
+      }
+    });
+
+    DatagramSocket socket = sender.createDatagramSocket(new DatagramSocketOptions()
+        .setIpV6(false).setLoopbackModeDisabled(false).setMulticastNetworkInterface("lo"));
+    long[] sequences = {1, 1, 4};
+    for (long seq : sequences) {
+      socket.send(QuoteFeed.encode(42, seq, quote("A", seq)), PORT, QuoteFeed.DEFAULT_GROUP,
+          tc.asyncAssertSuccess());
+    }
+  }
+
+  @Test
+  public void testThatMalformedDatagramsAreDropped(TestContext tc) {
+    Async async = tc.async();
+    receiver.eventBus().<Quote>consumer("received", message -> {
+      // The truncated datagrams are dropped, and do not count as a gap
+      tc.assertEquals(2.0, message.body().getBid());
+      tc.assertEquals(1L, feed.received());
+      tc.assertEquals(2L, feed.malformed());
+      tc.assertEquals(0L, feed.lost());
+      async.complete();
+    });
+
+    DatagramSocket socket = sender.createDatagramSocket(new DatagramSocketOptions()
+        .setIpV6(false).setLoopbackModeDisabled(false).setMulticastNetworkInterface("lo"));
+    Buffer valid = QuoteFeed.encode(42, 1, quote("A", 1.0));
+    socket.send(valid.getBuffer(0, 3), PORT, QuoteFeed.DEFAULT_GROUP, tc.asyncAssertSuccess());
+    socket.send(valid.getBuffer(0, QuoteFeed.HEADER + 4), PORT, QuoteFeed.DEFAULT_GROUP, tc.asyncAssertSuccess());
+    socket.send(QuoteFeed.encode(42, 2, quote("A", 2.0)), PORT, QuoteFeed.DEFAULT_GROUP, tc.asyncAssertSuccess());
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
@@ -0,0 +1,136 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RunWith(VertxUnitRunner.class)
+public class QuoteGatewayVerticleTest {
+
+  private static final int PORT = 35301;
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp(TestContext tc) {
+    vertx = Vertx.vertx();
+    vertx.deployVerticle(QuoteGatewayVerticle.class.getName(), new DeploymentOptions()
+        .setConfig(new JsonObject().put("gateway.port", PORT)), tc.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testThatOnlyTheSubscribedQuotesAreSent(TestContext tc) {
+    Async async = tc.async();
+    List<Quote> received = new ArrayList<>();
+    connect(tc, socket -> {
+      socket.write(QuoteGatewayVerticle.frame(QuoteGatewayVerticle.SUBSCRIBE, "A", "C"));
+      // Let the gateway process the subscription
+      vertx.setTimer(200, l -> {
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("B", 1.0));
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 2.0));
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("C", 3.0));
+      });
+    }, quote -> {
+      received.add(quote);
+      if (received.size() == 2) {
+        tc.assertEquals("A", received.get(0).getSymbol());
+        tc.assertEquals(2.0, received.get(0).getBid());
+        tc.assertEquals("C", received.get(1).getSymbol());
+        async.complete();
+      }
+    });
+  }
+
+  @Test
+  public void testUnsubscribe(TestContext tc) {
+    Async async = tc.async();
+    connect(tc, socket -> {
+      socket.write(QuoteGatewayVerticle.frame(QuoteGatewayVerticle.SUBSCRIBE, QuoteGatewayVerticle.ALL));
+      socket.write(QuoteGatewayVerticle.frame(QuoteGatewayVerticle.UNSUBSCRIBE, QuoteGatewayVerticle.ALL));
+      socket.write(QuoteGatewayVerticle.frame(QuoteGatewayVerticle.SUBSCRIBE, "B"));
+      vertx.setTimer(200, l -> {
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 1.0));
+        vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("B", 2.0));
+      });
+    }, quote -> {
+      tc.assertEquals("B", quote.getSymbol());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testThatLongSymbolsAreAccepted(TestContext tc) {
+    Async async = tc.async();
+    // Its length does not fit in a signed short
+    char[] symbol = new char[40000];
+    Arrays.fill(symbol, 'X');
+    connect(tc, socket -> {
+      socket.write(QuoteGatewayVerticle.frame(QuoteGatewayVerticle.SUBSCRIBE, new String(symbol), "B"));
+      vertx.setTimer(200, l -> vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("B", 1.0)));
+    }, quote -> {
+      tc.assertEquals("B", quote.getSymbol());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testThatMalformedFramesCloseTheConnection(TestContext tc) {
+    Async async = tc.async();
+    connect(tc, socket -> {
+      socket.closeHandler(v -> async.complete());
+      // The symbol is longer than the frame
+      socket.write(Buffer.buffer().appendInt(5).appendByte(QuoteGatewayVerticle.SUBSCRIBE)
+          .appendUnsignedShort(0xFFFF).appendShort((short) 0));
+    }, quote -> tc.fail("Unexpected quote"));
+  }
+
+  private void connect(TestContext tc, Consumer<NetSocket> onConnect, Consumer<Quote> onQuote) {
+    vertx.createNetClient().connect(PORT, "localhost", tc.asyncAssertSuccess(socket -> {
+      RecordParser parser = RecordParser.newFixed(4, null);
+      parser.setOutput(new Handler<Buffer>() {
+        boolean header = true;
+
+        @Override
+        public void handle(Buffer buffer) {
+          if (header) {
+            parser.fixedSizeMode(buffer.getInt(0));
+          } else {
+            tc.assertEquals(QuoteGatewayVerticle.QUOTE, buffer.getByte(0));
+            onQuote.accept(QuoteCodec.read(buffer, 1));
+            parser.fixedSizeMode(4);
+          }
+          header = !header;
+        }
+      });
+      socket.handler(parser);
+      onConnect.accept(socket);
+    }));
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
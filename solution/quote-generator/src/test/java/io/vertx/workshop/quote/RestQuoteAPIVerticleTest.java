@@ -0,0 +1,241 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.workshop.common.Quote;
+import io.vertx.workshop.common.QuoteCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(VertxUnitRunner.class)
+public class RestQuoteAPIVerticleTest {
+
+  private static final int PORT = 35001;
+
+  private Vertx vertx;
+  private WebClient client;
+
+  @Before
+  public void setUp(TestContext tc) {
+    vertx = Vertx.vertx();
+    QuoteCodec.register(vertx);
+    client = WebClient.create(vertx);
+    vertx.deployVerticle(RestQuoteAPIVerticle.class.getName(), new DeploymentOptions().setConfig(
+        new JsonObject().put("http.port", PORT)), tc.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testRetrievingQuotes(TestContext tc) {
+    Async async = tc.async();
+    Quote a = quote("A", 10.0);
+    Quote b = quote("B", 20.0);
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, a);
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, b);
+
+    // Let the verticle receive the quotes
+    vertx.setTimer(100, l ->
+        client.get(PORT, "localhost", "/?name=A").as(BodyCodec.jsonObject()).send(tc.asyncAssertSuccess(resp -> {
+          tc.assertEquals(200, resp.statusCode());
+          tc.assertEquals(a.toJson(), resp.body());
+
+          client.get(PORT, "localhost", "/").as(BodyCodec.jsonObject()).send(tc.asyncAssertSuccess(all -> {
+            tc.assertEquals(200, all.statusCode());
+            tc.assertEquals(new JsonObject().put("A", a.toJson()).put("B", b.toJson()), all.body());
+
+            // The snapshot is updated when a new quote is received.
+            Quote update = quote("A", 12.0);
+            vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, update);
+            vertx.setTimer(100, l2 ->
+                client.get(PORT, "localhost", "/").as(BodyCodec.jsonObject()).send(tc.asyncAssertSuccess(last -> {
+                  tc.assertEquals(update.toJson(), last.body().getJsonObject("A"));
+                  async.complete();
+                })));
+          }));
+        })));
+  }
+
+  @Test
+  public void testBulkLookup(TestContext tc) {
+    Async async = tc.async();
+    Quote a = quote("A", 10.0);
+    Quote b = quote("B", 20.0);
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, a);
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, b);
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("C", 30.0));
+
+    JsonObject expected = new JsonObject().put("A", a.toJson()).put("B", b.toJson());
+    vertx.setTimer(100, l ->
+        client.get(PORT, "localhost", "/?names=A,B,missing").as(BodyCodec.jsonObject())
+            .send(tc.asyncAssertSuccess(get -> {
+              tc.assertEquals(expected, get.body());
+
+              client.post(PORT, "localhost", "/").as(BodyCodec.jsonObject())
+                  .sendJson(new JsonArray().add("B").add("A").add("missing"), tc.asyncAssertSuccess(post -> {
+                    tc.assertEquals(expected, post.body());
+
+                    client.post(PORT, "localhost", "/").sendBuffer(Buffer.buffer("{}"),
+                        tc.asyncAssertSuccess(invalid -> {
+                          tc.assertEquals(400, invalid.statusCode());
+                          async.complete();
+                        }));
+                  }));
+            })));
+  }
+
+  @Test
+  public void testMissingQuote(TestContext tc) {
+    client.get(PORT, "localhost", "/?name=missing").send(tc.asyncAssertSuccess(resp ->
+        tc.assertEquals(404, resp.statusCode())));
+  }
+
+  @Test
+  public void testNotModified(TestContext tc) {
+    Async async = tc.async();
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 10.0));
+
+    vertx.setTimer(100, l ->
+        client.get(PORT, "localhost", "/?name=A").send(tc.asyncAssertSuccess(first -> {
+          String tag = first.getHeader("ETag");
+          tc.assertNotNull(tag);
+
+          client.get(PORT, "localhost", "/?name=A").putHeader("If-None-Match", tag)
+              .send(tc.asyncAssertSuccess(second -> {
+                tc.assertEquals(304, second.statusCode());
+                tc.assertNull(second.body());
+
+                // A new quote changes the tag
+                vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 11.0));
+                vertx.setTimer(100, l2 ->
+                    client.get(PORT, "localhost", "/?name=A").putHeader("If-None-Match", tag)
+                        .send(tc.asyncAssertSuccess(third -> {
+                          tc.assertEquals(200, third.statusCode());
+                          tc.assertNotEquals(tag, third.getHeader("ETag"));
+                          async.complete();
+                        })));
+              }));
+        })));
+  }
+
+  @Test
+  public void testSnapshotNotModified(TestContext tc) {
+    Async async = tc.async();
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 10.0));
+
+    vertx.setTimer(100, l ->
+        client.get(PORT, "localhost", "/").send(tc.asyncAssertSuccess(first -> {
+          String tag = first.getHeader("ETag");
+          client.get(PORT, "localhost", "/").putHeader("If-None-Match", "\"other\", " + tag)
+              .send(tc.asyncAssertSuccess(second -> {
+                tc.assertEquals(304, second.statusCode());
+                async.complete();
+              }));
+        })));
+  }
+
+  @Test
+  public void testStream(TestContext tc) {
+    Async async = tc.async();
+    Quote a = quote("A", 10.0);
+    Quote b = quote("B", 20.0);
+    Quote update = quote("A", 11.0);
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, a);
+
+    vertx.setTimer(100, l -> vertx.createHttpClient().getNow(PORT, "localhost", "/stream?names=A", resp -> {
+      tc.assertEquals("text/event-stream", resp.getHeader("Content-Type"));
+      Buffer received = Buffer.buffer();
+      resp.handler(buffer -> {
+        received.appendBuffer(buffer);
+        String content = received.toString();
+        if (content.equals("data: " + a.toJson().encode() + "\n\n")) {
+          // Snapshot received, send the updates
+          vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, b);
+          vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, update);
+        } else if (content.endsWith("\n\n")) {
+          tc.assertEquals("data: " + a.toJson().encode() + "\n\n" + "data: " + update.toJson().encode() + "\n\n",
+              content);
+          async.complete();
+        }
+      });
+    }));
+  }
+
+  @Test
+  public void testSharedStore(TestContext tc) {
+    Async async = tc.async();
+    QuoteStore store = new QuoteStore();
+    int port = PORT + 1;
+    DeploymentOptions options = new DeploymentOptions().setConfig(new JsonObject().put("http.port", port));
+    vertx.deployVerticle(new RestQuoteAPIVerticle(store), options, tc.asyncAssertSuccess(id1 ->
+        vertx.deployVerticle(new RestQuoteAPIVerticle(store), options, tc.asyncAssertSuccess(id2 -> {
+          Quote a = quote("A", 10.0);
+          store.update(a);
+
+          // The requests are dispatched between the instances, all of them see the quote.
+          Async requests = tc.async(4);
+          for (int i = 0; i < 4; i++) {
+            client.get(port, "localhost", "/?name=A").as(BodyCodec.jsonObject()).send(tc.asyncAssertSuccess(resp -> {
+              tc.assertEquals(a.toJson(), resp.body());
+              requests.countDown();
+            }));
+          }
+          requests.handler(v -> client.get(port, "localhost", "/").as(BodyCodec.jsonObject())
+              .send(tc.asyncAssertSuccess(resp -> {
+                tc.assertEquals(new JsonObject().put("A", a.toJson()), resp.body());
+                async.complete();
+              })));
+        }))));
+  }
+
+  @Test
+  public void testHistory(TestContext tc) {
+    Async async = tc.async();
+    long from = System.currentTimeMillis();
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 10.0));
+    vertx.eventBus().publish(GeneratorConfigVerticle.ADDRESS, quote("A", 11.0));
+
+    vertx.setTimer(100, l ->
+        client.get(PORT, "localhost", "/?name=A&from=" + from).as(BodyCodec.jsonArray())
+            .send(tc.asyncAssertSuccess(resp -> {
+              tc.assertEquals(200, resp.statusCode());
+              tc.assertEquals(2, resp.body().size());
+              tc.assertEquals(11.0, resp.body().getJsonObject(1).getDouble("bid"));
+
+              client.get(PORT, "localhost", "/?name=A&to=" + (from - 1)).as(BodyCodec.jsonArray())
+                  .send(tc.asyncAssertSuccess(none -> {
+                    tc.assertEquals(0, none.body().size());
+                    async.complete();
+                  }));
+            })));
+  }
+
+  @Test
+  public void testTagMatching() {
+    assertThat(RestQuoteAPIVerticle.matches(null, "\"a\"")).isFalse();
+    assertThat(RestQuoteAPIVerticle.matches("\"a\"", "\"a\"")).isTrue();
+    assertThat(RestQuoteAPIVerticle.matches("W/\"a\"", "\"a\"")).isTrue();
+    assertThat(RestQuoteAPIVerticle.matches("\"b\", \"a\"", "\"a\"")).isTrue();
+    assertThat(RestQuoteAPIVerticle.matches("*", "\"a\"")).isTrue();
+    assertThat(RestQuoteAPIVerticle.matches("\"b\"", "\"a\"")).isFalse();
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
@@ -0,0 +1,114 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TickEngineVerticleTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testResolution() {
+    TickEngineVerticle verticle = new TickEngineVerticle();
+    verticle.init(new JsonObject().put("companies", new JsonArray()
+        .add(company("A", 100))
+        .add(company("B", 300))));
+    assertThat(verticle.resolution).isEqualTo(100);
+
+    verticle = new TickEngineVerticle();
+    verticle.init(new JsonObject().put("companies", new JsonArray()
+        .add(company("A", 3000))
+        .add(company("B", 3001))));
+    assertThat(verticle.resolution).isEqualTo(TickEngineVerticle.MIN_RESOLUTION);
+  }
+
+  @Test
+  public void testThatPeriodsAreHonoured() {
+    Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message ->
+        counts.computeIfAbsent(message.body().getName(), k -> new AtomicInteger()).incrementAndGet());
+
+    vertx.deployVerticle(TickEngineVerticle.class.getName(), new DeploymentOptions().setConfig(
+        new JsonObject().put("companies", new JsonArray()
+            .add(company("fast", 20))
+            .add(company("slow", 200)))));
+
+    await().until(() -> counts.containsKey("slow") && counts.get("slow").get() >= 3);
+    // The slow company is emitted every 10 ticks of the fast one.
+    assertThat(counts.get("fast").get()).isGreaterThanOrEqualTo(25);
+  }
+
+  @Test
+  public void testTheGeneratorWithTheTickEngine() throws IOException {
+    byte[] bytes = Files.readAllBytes(new File("src/test/resources/config.json").toPath());
+    JsonObject config = new JsonObject(new String(bytes, "UTF-8"))
+        .put("tick-engine", true)
+        .put("tick-engine.shards", 2);
+
+    Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    vertx.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message ->
+        counts.computeIfAbsent(message.body().getSymbol(), k -> new AtomicInteger()).incrementAndGet());
+
+    vertx.deployVerticle(GeneratorConfigVerticle.class.getName(), new DeploymentOptions().setConfig(config));
+
+    await().until(() -> counts.size() == 3 && counts.values().stream().allMatch(i -> i.get() > 10));
+  }
+
+  @Test
+  public void testTheGeneratorIsReproducible() throws IOException {
+    byte[] bytes = Files.readAllBytes(new File("src/test/resources/config.json").toPath());
+    JsonObject config = new JsonObject(new String(bytes, "UTF-8"))
+        .put("http.port", 35002)
+        .put("tick-engine", true)
+        .put("tick-engine.shards", 1)
+        .put("seed", 42L)
+        .put("fast-forward", 100L);
+
+    List<List<JsonObject>> runs = new ArrayList<>();
+    for (int run = 0; run < 2; run++) {
+      Vertx instance = Vertx.vertx();
+      List<JsonObject> received = new CopyOnWriteArrayList<>();
+      instance.eventBus().<Quote>consumer(GeneratorConfigVerticle.ADDRESS, message ->
+          received.add(message.body().toJson()));
+      instance.deployVerticle(GeneratorConfigVerticle.class.getName(), new DeploymentOptions().setConfig(config));
+      await().until(() -> received.size() == 300);
+      instance.close();
+      runs.add(received);
+    }
+
+    assertThat(runs.get(1)).isEqualTo(runs.get(0));
+  }
+
+  private JsonObject company(String name, long period) {
+    return new JsonObject().put("name", name).put("period", period);
+  }
+}
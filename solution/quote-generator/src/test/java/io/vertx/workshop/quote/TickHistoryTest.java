@@ -0,0 +1,58 @@
+package io.vertx.workshop.quote;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.workshop.common.Quote;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TickHistoryTest {
+
+  @Test
+  public void testRange() {
+    TickHistory history = new TickHistory(3);
+    assertThat(history.range(0, Long.MAX_VALUE).size()).isEqualTo(0);
+    for (int i = 1; i <= 5; i++) {
+      history.add(i * 10, quote("A", i));
+    }
+
+    // Only the last 3 ticks are kept
+    assertThat(history.range(0, Long.MAX_VALUE).size()).isEqualTo(3);
+    assertThat(history.range(0, Long.MAX_VALUE).getJsonObject(0))
+        .isEqualTo(new JsonObject().put("time", 30L).put("bid", 3.0).put("ask", 4.0).put("shares", 500));
+    assertThat(history.range(35, 50).size()).isEqualTo(2);
+    assertThat(history.range(40, 40).getJsonObject(0).getDouble("bid")).isEqualTo(4.0);
+    assertThat(history.range(51, 60).size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testThatTheHistoryIsConsistentWhileWritten() throws InterruptedException {
+    TickHistory history = new TickHistory(64);
+    int ticks = 200_000;
+    Thread writer = new Thread(() -> {
+      for (int i = 1; i <= ticks; i++) {
+        history.add(i, quote("A", i));
+      }
+    });
+    writer.start();
+
+    while (writer.isAlive()) {
+      JsonArray range = history.range(0, Long.MAX_VALUE);
+      for (int i = 0; i < range.size(); i++) {
+        JsonObject tick = range.getJsonObject(i);
+        // The ticks are consecutive, and the bid matches the time of the tick
+        assertThat(tick.getDouble("bid")).isEqualTo((double) tick.getLong("time"));
+        if (i > 0) {
+          assertThat(tick.getLong("time")).isEqualTo(range.getJsonObject(i - 1).getLong("time") + 1);
+        }
+      }
+    }
+    writer.join();
+    assertThat(history.range(0, Long.MAX_VALUE).size()).isEqualTo(64);
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}
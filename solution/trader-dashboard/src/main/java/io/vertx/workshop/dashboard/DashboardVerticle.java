@@ -17,6 +17,7 @@ import io.vertx.ext.web.handler.sockjs.SockJSHandler;
 import io.vertx.servicediscovery.rest.ServiceDiscoveryRestEndpoint;
 import io.vertx.servicediscovery.types.HttpEndpoint;
 import io.vertx.workshop.common.MicroServiceVerticle;
+import io.vertx.workshop.common.QuoteCodec;
 
 /**
  * The dashboard of the micro-trader application.
@@ -31,11 +32,15 @@ public class DashboardVerticle extends MicroServiceVerticle {
     super.start();
     Router router = Router.router(vertx);
 
+    // Quotes are sent using a binary codec, the bridge forwards them to the browsers as JSON.
+    vertx.eventBus().registerCodec(QuoteCodec.asJson());
+
     // Event bus bridge
     SockJSHandler sockJSHandler = SockJSHandler.create(vertx);
     BridgeOptions options = new BridgeOptions();
     options
         .addOutboundPermitted(new PermittedOptions().setAddress("market"))
+        .addOutboundPermitted(new PermittedOptions().setAddress("market.delta"))
         .addOutboundPermitted(new PermittedOptions().setAddress("portfolio"))
         .addOutboundPermitted(new PermittedOptions().setAddress("service.portfolio"))
         .addInboundPermitted(new PermittedOptions().setAddress("service.portfolio"))
@@ -48,7 +53,7 @@ public class DashboardVerticle extends MicroServiceVerticle {
     ServiceDiscoveryRestEndpoint.create(router, discovery);
 
     // Last operations
-    router.get("/operations").handler(this::callAuditServiceWithExceptionHandlerWithCircuitBreaker);
+    router.get("/operations").handler(this::callAuditServiceTimeoutWithCircuitBreaker);
 
     // Static content
     router.route("/*").handler(StaticHandler.create());
@@ -29,7 +29,10 @@
 
   /**
  A service managing a portfolio.
-
+ <p>
+ This service is an event bus service (a.k.a service proxies, or async RPC). The client and server are generated at
+ compile time.
+ <p>
  @class
   */
   var PortfolioService = function(eb, address) {
@@ -47,92 +50,83 @@
     };
 
     /**
+     Gets the portfolio.
 
      @public
-     @param resultHandler {function} 
+     @param account {string} the account 
+     @param resultHandler {function} the result handler called when the portfolio has been retrieved. The async result indicates whether the call was successful or not. 
      */
-    this.getPortfolio = function(resultHandler) {
+    this.getPortfolio = function(account, resultHandler) {
       var __args = arguments;
-      if (__args.length === 1 && typeof __args[0] === 'function') {
+      if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
         if (closed) {
           throw new Error('Proxy is closed');
         }
-        j_eb.send(j_address, {}, {"action":"getPortfolio"}, function(err, result) { __args[0](err, result &&result.body); });
+        j_eb.send(j_address, {"account":__args[0]}, {"action":"getPortfolio"}, function(err, result) { __args[1](err, result &&result.body); });
         return;
       } else throw new TypeError('function invoked with invalid arguments');
     };
 
     /**
+     Buy `amount` shares of the given shares (quote).
 
      @public
-     @param amount {number} 
-     @param quote {Object} 
-     @param resultHandler {function} 
+     @param account {string} the account 
+     @param amount {number} the amount 
+     @param quote {Object} the last quote 
+     @param resultHandler {function} the result handler with the updated portfolio. If the action cannot be executed, the async result is market as a failure (not enough money, not enough shares available...) 
      */
-    this.buy = function(amount, quote, resultHandler) {
+    this.buy = function(account, amount, quote, resultHandler) {
       var __args = arguments;
-      if (__args.length === 3 && typeof __args[0] ==='number' && (typeof __args[1] === 'object' && __args[1] != null) && typeof __args[2] === 'function') {
+      if (__args.length === 4 && typeof __args[0] === 'string' && typeof __args[1] ==='number' && (typeof __args[2] === 'object' && __args[2] != null) && typeof __args[3] === 'function') {
         if (closed) {
           throw new Error('Proxy is closed');
         }
-        j_eb.send(j_address, {"amount":__args[0], "quote":__args[1]}, {"action":"buy"}, function(err, result) { __args[2](err, result &&result.body); });
+        j_eb.send(j_address, {"account":__args[0], "amount":__args[1], "quote":__args[2]}, {"action":"buy"}, function(err, result) { __args[3](err, result &&result.body); });
         return;
       } else throw new TypeError('function invoked with invalid arguments');
     };
 
     /**
+     Sell `amount` shares of the given shares (quote).
 
      @public
-     @param amount {number} 
-     @param quote {Object} 
-     @param resultHandler {function} 
+     @param account {string} the account 
+     @param amount {number} the amount 
+     @param quote {Object} the last quote 
+     @param resultHandler {function} the result handler with the updated portfolio. If the action cannot be executed, the async result is market as a failure (not enough share...) 
      */
-    this.sell = function(amount, quote, resultHandler) {
+    this.sell = function(account, amount, quote, resultHandler) {
       var __args = arguments;
-      if (__args.length === 3 && typeof __args[0] ==='number' && (typeof __args[1] === 'object' && __args[1] != null) && typeof __args[2] === 'function') {
+      if (__args.length === 4 && typeof __args[0] === 'string' && typeof __args[1] ==='number' && (typeof __args[2] === 'object' && __args[2] != null) && typeof __args[3] === 'function') {
         if (closed) {
           throw new Error('Proxy is closed');
         }
-        j_eb.send(j_address, {"amount":__args[0], "quote":__args[1]}, {"action":"sell"}, function(err, result) { __args[2](err, result &&result.body); });
+        j_eb.send(j_address, {"account":__args[0], "amount":__args[1], "quote":__args[2]}, {"action":"sell"}, function(err, result) { __args[3](err, result &&result.body); });
         return;
       } else throw new TypeError('function invoked with invalid arguments');
     };
 
     /**
+     Evaluates the current value of the portfolio.
 
      @public
-     @param resultHandler {function} 
+     @param account {string} the account 
+     @param resultHandler {function} the result handler with the valuation 
      */
-    this.evaluate = function(resultHandler) {
+    this.evaluate = function(account, resultHandler) {
       var __args = arguments;
-      if (__args.length === 1 && typeof __args[0] === 'function') {
+      if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
         if (closed) {
           throw new Error('Proxy is closed');
         }
-        j_eb.send(j_address, {}, {"action":"evaluate"}, function(err, result) { __args[0](err, result &&result.body); });
+        j_eb.send(j_address, {"account":__args[0]}, {"action":"evaluate"}, function(err, result) { __args[1](err, result &&result.body); });
         return;
       } else throw new TypeError('function invoked with invalid arguments');
     };
 
   };
 
-  /**
-
-   @memberof module:vertx-workshop-portfolio-js/portfolio_service
-   @param vertx {Vertx} 
-   @return {PortfolioService}
-   */
-  PortfolioService.getProxy = function(vertx) {
-    var __args = arguments;
-    if (__args.length === 1 && typeof __args[0] === 'object' && __args[0]._jdel) {
-      if (closed) {
-        throw new Error('Proxy is closed');
-      }
-      j_eb.send(j_address, {"vertx":__args[0]}, {"action":"getProxy"});
-      return;
-    } else throw new TypeError('function invoked with invalid arguments');
-  };
-
   if (typeof exports !== 'undefined') {
     if (typeof module !== 'undefined' && module.exports) {
       exports = module.exports = PortfolioService;
@@ -0,0 +1,118 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A stream of quotes, read from a market data consumer, that only keeps the last quote of each company while it is
+ * paused (or has no handler).
+ * <p>
+ * A slow consumer pauses the stream while it is busy: the quotes received in the meantime overwrite the slot of their
+ * company, and the remaining (last) quotes are delivered when the stream is resumed. So, the memory used by a slow
+ * consumer is bounded by the number of companies, and not by how far behind it is. As it is a {@link ReadStream}, it
+ * can also be pumped to a {@link io.vertx.core.streams.WriteStream}, such as a HTTP response or a web socket.
+ * <p>
+ * Instances must be used from the context of the consumer.
+ */
+public class ConflatingQuoteStream implements ReadStream<Quote> {
+
+  private final MessageConsumer<Quote> consumer;
+  private final Map<String, Quote> pending = new LinkedHashMap<>();
+
+  private Handler<Quote> handler;
+  private boolean paused;
+  private boolean draining;
+
+  /**
+   * Creates a new instance of {@link ConflatingQuoteStream}. The handler of the consumer is replaced.
+   *
+   * @param consumer the consumer receiving the quotes (from the `market` address or the address of a company)
+   */
+  public ConflatingQuoteStream(MessageConsumer<Quote> consumer) {
+    this.consumer = consumer;
+    consumer.handler(message -> add(message.body()));
+  }
+
+  private void add(Quote quote) {
+    if (handler != null && !paused && pending.isEmpty()) {
+      handler.handle(quote);
+    } else {
+      // Overwrite the slot of the company, but keep its position
+      pending.put(quote.getSymbol(), quote);
+    }
+  }
+
+  private void drain() {
+    if (draining) {
+      return;
+    }
+    draining = true;
+    try {
+      Iterator<Quote> iterator = pending.values().iterator();
+      while (handler != null && !paused && iterator.hasNext()) {
+        Quote quote = iterator.next();
+        iterator.remove();
+        handler.handle(quote);
+        // The handler may have added quotes
+        iterator = pending.values().iterator();
+      }
+    } finally {
+      draining = false;
+    }
+  }
+
+  /**
+   * @return the number of quotes waiting to be delivered, at most one per company
+   */
+  public int pending() {
+    return pending.size();
+  }
+
+  /**
+   * Unregisters the underlying consumer.
+   *
+   * @param completionHandler the completion handler, may be {@code null}
+   */
+  public void unregister(Handler<AsyncResult<Void>> completionHandler) {
+    pending.clear();
+    consumer.unregister(completionHandler);
+  }
+
+  @Override
+  public ConflatingQuoteStream exceptionHandler(Handler<Throwable> handler) {
+    consumer.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public ConflatingQuoteStream handler(Handler<Quote> handler) {
+    this.handler = handler;
+    drain();
+    return this;
+  }
+
+  @Override
+  public ConflatingQuoteStream pause() {
+    paused = true;
+    return this;
+  }
+
+  @Override
+  public ConflatingQuoteStream resume() {
+    paused = false;
+    drain();
+    return this;
+  }
+
+  @Override
+  public ConflatingQuoteStream endHandler(Handler<Void> endHandler) {
+    consumer.endHandler(endHandler);
+    return this;
+  }
+}
@@ -2,6 +2,7 @@ package io.vertx.workshop.common;
 
 import io.vertx.core.*;
 import io.vertx.core.impl.ConcurrentHashSet;
+import io.vertx.core.json.JsonObject;
 import io.vertx.servicediscovery.Record;
 import io.vertx.servicediscovery.ServiceDiscovery;
 import io.vertx.servicediscovery.ServiceDiscoveryOptions;
@@ -23,9 +24,15 @@ public class MicroServiceVerticle extends AbstractVerticle {
   protected ServiceDiscovery discovery;
   protected Set<Record> registeredRecords = new ConcurrentHashSet<>();
 
+  /**
+   * The clients retrieved from the discovery, reused until their record is unpublished or modified.
+   */
+  protected ServiceClientCache clients;
+
   @Override
   public void start() {
     discovery = ServiceDiscovery.create(vertx, new ServiceDiscoveryOptions().setBackendConfiguration(config()));
+    clients = new ServiceClientCache(vertx, discovery);
   }
 
   public void publishHttpEndpoint(String name, String host, int port, Handler<AsyncResult<Void>>
@@ -40,6 +47,14 @@ public class MicroServiceVerticle extends AbstractVerticle {
     publish(record, completionHandler);
   }
 
+  public void publishMessageSource(String name, String address, Class<?> contentClass, JsonObject metadata,
+                                   Handler<AsyncResult<Void>> completionHandler) {
+    Record record = MessageSource.createRecord(name, address, contentClass);
+    // Merged afterwards, as `createRecord` with metadata drops them when a content class is given.
+    record.getMetadata().mergeIn(metadata);
+    publish(record, completionHandler);
+  }
+
   public void publishMessageSource(String name, String address, Handler<AsyncResult<Void>>
       completionHandler) {
     Record record = MessageSource.createRecord(name, address);
@@ -71,6 +86,7 @@ public class MicroServiceVerticle extends AbstractVerticle {
 
   @Override
   public void stop(Future<Void> future) throws Exception {
+    clients.close();
     List<Future> futures = new ArrayList<>();
     for (Record record : registeredRecords) {
       Future<Void> unregistrationFuture = Future.future();
@@ -0,0 +1,129 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A verticle receiving the multicast market data feed (see {@link QuoteFeed}) and publishing the quotes on the local
+ * event bus, on the `market` address by default.
+ * <p>
+ * The lost datagrams are detected using the sequence numbers, they are counted and reported (at most once per
+ * `multicast.report` period), but not recovered: the next quote of the company replaces the lost one. The malformed
+ * datagrams, such as the truncated ones, are counted and dropped.
+ * <p>
+ * The node running this verticle should not be part of the cluster of the quote generator, otherwise the quotes would
+ * be received twice.
+ * <p>
+ * Configuration: `multicast.group`, `multicast.port`, `multicast.interface` (the network interface, such as `lo`),
+ * `multicast.target` (the address on which the quotes are published) and `multicast.report` (the period in ms at which
+ * the new losses are reported, default: 10000).
+ */
+public class MulticastQuoteReceiver extends AbstractVerticle {
+
+  private final Map<Integer, Long> sequences = new HashMap<>();
+  private volatile long received;
+  private volatile long lost;
+  private volatile long malformed;
+  private long reported;
+
+  private String target;
+  private DatagramSocket socket;
+
+  @Override
+  public void start(Future<Void> future) {
+    JsonObject config = config();
+    String group = config.getString("multicast.group", QuoteFeed.DEFAULT_GROUP);
+    int port = config.getInteger("multicast.port", QuoteFeed.DEFAULT_PORT);
+    String networkInterface = config.getString("multicast.interface");
+    target = config.getString("multicast.target", "market");
+    long report = config.getLong("multicast.report", 10000L);
+
+    QuoteCodec.register(vertx);
+
+    socket = vertx.createDatagramSocket(new DatagramSocketOptions().setReuseAddress(true).setIpV6(false));
+    socket.handler(packet -> handle(packet.data()));
+    vertx.setPeriodic(report, l -> report());
+    socket.listen(port, "0.0.0.0", ar -> {
+      if (ar.failed()) {
+        future.fail(ar.cause());
+      } else {
+        socket.listenMulticastGroup(group, networkInterface, null, joined -> {
+          if (joined.failed()) {
+            future.fail(joined.cause());
+          } else {
+            future.complete();
+          }
+        });
+      }
+    });
+  }
+
+  @Override
+  public void stop(Future<Void> future) {
+    socket.close(future);
+  }
+
+  private void handle(Buffer datagram) {
+    if (datagram.length() < QuoteFeed.HEADER) {
+      malformed++;
+      return;
+    }
+    int source = QuoteFeed.source(datagram);
+    long seq = QuoteFeed.sequence(datagram);
+    Long last = sequences.get(source);
+    if (last != null && seq <= last) {
+      // Duplicated or reordered, the quote is older than the last one
+      return;
+    }
+    Quote quote;
+    try {
+      quote = QuoteFeed.quote(datagram);
+    } catch (RuntimeException e) {
+      // Truncated or corrupted, the sequence number cannot be trusted either
+      malformed++;
+      return;
+    }
+    if (last != null && seq > last + 1) {
+      lost += seq - last - 1;
+    }
+    sequences.put(source, seq);
+    received++;
+    vertx.eventBus().publish(target, quote);
+  }
+
+  private void report() {
+    long current = lost;
+    if (current != reported) {
+      System.out.println("Multicast feed: lost " + (current - reported) + " datagram(s), " + current + " in total");
+      reported = current;
+    }
+  }
+
+  /**
+   * @return the number of quotes received
+   */
+  public long received() {
+    return received;
+  }
+
+  /**
+   * @return the number of datagrams lost (detected using the sequence numbers)
+   */
+  public long lost() {
+    return lost;
+  }
+
+  /**
+   * @return the number of malformed datagrams, dropped
+   */
+  public long malformed() {
+    return malformed;
+  }
+}
@@ -0,0 +1,36 @@
+package io.vertx.workshop.common;
+
+/**
+ * Prices and amounts of money are represented as fixed-point numbers: a {@code long} number of ticks of
+ * {@code 1 / SCALE} (0.0001). The arithmetic on ticks is exact, and does not allocate.
+ * <p>
+ * The JSON representations (sent to the browsers and stored by the audit) still use decimal numbers, converted with
+ * {@link #toDouble(long)} and {@link #toTicks(double)}.
+ */
+public final class Prices {
+
+  /**
+   * The number of ticks in a unit.
+   */
+  public static final long SCALE = 10_000;
+
+  private Prices() {
+    // Avoid direct instantiation.
+  }
+
+  /**
+   * @param value the decimal value
+   * @return the number of ticks, rounded to the closest tick
+   */
+  public static long toTicks(double value) {
+    return Math.round(value * SCALE);
+  }
+
+  /**
+   * @param ticks the number of ticks
+   * @return the decimal value
+   */
+  public static double toDouble(long ticks) {
+    return (double) ticks / SCALE;
+  }
+}
@@ -0,0 +1,156 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Objects;
+
+/**
+ * Structure representing a market data (quote). The structure is close to
+ * <a href="https://en.wikipedia.org/wiki/Market_data">https://en.wikipedia.org/wiki/Market_data</a>.
+ * <p>
+ * Instances are immutable, so they can be sent on the event bus and shared between the local consumers without
+ * copies. On the wire, the {@link QuoteCodec} writes them using a compact binary layout.
+ * <p>
+ * The prices are stored as fixed-point numbers (see {@link Prices}), the {@code double} getters and the JSON
+ * representation convert them.
+ */
+public class Quote {
+
+  /**
+   * The name of the (unique) exchange. It's a constant, so it is not sent on the wire.
+   */
+  public static final String EXCHANGE = "vert.x stock exchange";
+
+  private final String symbol;
+  private final String name;
+  private final long bid;
+  private final long ask;
+  private final int volume;
+  private final long open;
+  private final int shares;
+
+  /**
+   * Creates a new instance of {@link Quote}.
+   *
+   * @param symbol the symbol of the company
+   * @param name   the name of the company
+   * @param bid    the bid price
+   * @param ask    the ask price
+   * @param volume the number of stocks of the company
+   * @param open   the opening price
+   * @param shares the number of shares available on the market
+   */
+  public Quote(String symbol, String name, double bid, double ask, int volume, double open, int shares) {
+    this(symbol, name, Prices.toTicks(bid), Prices.toTicks(ask), volume, Prices.toTicks(open), shares);
+  }
+
+  private Quote(String symbol, String name, long bid, long ask, int volume, long open, int shares) {
+    this.symbol = Objects.requireNonNull(symbol);
+    this.name = Objects.requireNonNull(name);
+    this.bid = bid;
+    this.ask = ask;
+    this.volume = volume;
+    this.open = open;
+    this.shares = shares;
+  }
+
+  /**
+   * Creates a new instance of {@link Quote} from prices expressed in ticks (see {@link Prices}).
+   *
+   * @param symbol the symbol of the company
+   * @param name   the name of the company
+   * @param bid    the bid price, in ticks
+   * @param ask    the ask price, in ticks
+   * @param volume the number of stocks of the company
+   * @param open   the opening price, in ticks
+   * @param shares the number of shares available on the market
+   * @return the quote
+   */
+  public static Quote fromTicks(String symbol, String name, long bid, long ask, int volume, long open, int shares) {
+    return new Quote(symbol, name, bid, ask, volume, open, shares);
+  }
+
+  /**
+   * Creates a new instance of {@link Quote} from its json representation.
+   *
+   * @param json the json object
+   */
+  public Quote(JsonObject json) {
+    this(json.getString("symbol", json.getString("name")),
+        json.getString("name"),
+        json.getDouble("bid", 0.0),
+        json.getDouble("ask", 0.0),
+        json.getInteger("volume", 0),
+        json.getDouble("open", 0.0),
+        json.getInteger("shares", 0));
+  }
+
+  /**
+   * @return the json representation of the quote, as sent to the browsers and returned by the REST API.
+   */
+  public JsonObject toJson() {
+    return new JsonObject()
+        .put("exchange", EXCHANGE)
+        .put("symbol", symbol)
+        .put("name", name)
+        .put("bid", Prices.toDouble(bid))
+        .put("ask", Prices.toDouble(ask))
+        .put("volume", volume)
+        .put("open", Prices.toDouble(open))
+        .put("shares", shares);
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public double getBid() {
+    return Prices.toDouble(bid);
+  }
+
+  /**
+   * @return the bid price, in ticks
+   */
+  public long getBidTicks() {
+    return bid;
+  }
+
+  public double getAsk() {
+    return Prices.toDouble(ask);
+  }
+
+  /**
+   * @return the ask price, in ticks
+   */
+  public long getAskTicks() {
+    return ask;
+  }
+
+  public int getVolume() {
+    return volume;
+  }
+
+  public double getOpen() {
+    return Prices.toDouble(open);
+  }
+
+  /**
+   * @return the opening price, in ticks
+   */
+  public long getOpenTicks() {
+    return open;
+  }
+
+  public int getShares() {
+    return shares;
+  }
+
+  @Override
+  public String toString() {
+    return "Quote{" + symbol + ", bid=" + getBid() + ", ask=" + getAsk() + ", shares=" + shares + "}";
+  }
+}
@@ -0,0 +1,48 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.json.JsonArray;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of quotes sent in a single message. Like {@link Quote}, instances are immutable, and are sent on the wire
+ * using the {@link QuoteBatchCodec}.
+ */
+public class QuoteBatch {
+
+  private final List<Quote> quotes;
+
+  /**
+   * Creates a new instance of {@link QuoteBatch}.
+   *
+   * @param quotes the quotes, the array must not be modified afterwards
+   */
+  public QuoteBatch(Quote... quotes) {
+    this.quotes = Collections.unmodifiableList(Arrays.asList(quotes));
+  }
+
+  /**
+   * @return the quotes, in the order they have been emitted
+   */
+  public List<Quote> getQuotes() {
+    return quotes;
+  }
+
+  /**
+   * @return the number of quotes
+   */
+  public int size() {
+    return quotes.size();
+  }
+
+  /**
+   * @return the json representation of the batch, an array of quotes.
+   */
+  public JsonArray toJson() {
+    JsonArray array = new JsonArray();
+    quotes.forEach(quote -> array.add(quote.toJson()));
+    return array;
+  }
+}
@@ -0,0 +1,65 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+/**
+ * An event bus codec sending {@link QuoteBatch}. The batch is written as the number of quotes (int) followed by the
+ * quotes, using the {@link QuoteCodec} layout.
+ */
+public class QuoteBatchCodec implements MessageCodec<QuoteBatch, QuoteBatch> {
+
+  /**
+   * The name of the codec, written on the wire.
+   */
+  public static final String NAME = "quote-batch";
+
+  /**
+   * Registers the codec as default codec for {@link QuoteBatch} on the given Vert.x instance. Calling this method
+   * several times is harmless.
+   *
+   * @param vertx the Vert.x instance
+   */
+  public static void register(Vertx vertx) {
+    try {
+      vertx.eventBus().registerDefaultCodec(QuoteBatch.class, new QuoteBatchCodec());
+    } catch (IllegalStateException e) {
+      // Already registered.
+    }
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, QuoteBatch batch) {
+    buffer.appendInt(batch.size());
+    for (Quote quote : batch.getQuotes()) {
+      QuoteCodec.write(buffer, quote);
+    }
+  }
+
+  @Override
+  public QuoteBatch decodeFromWire(int pos, Buffer buffer) {
+    Quote[] quotes = new Quote[buffer.getInt(pos)];
+    pos += 4;
+    for (int i = 0; i < quotes.length; i++) {
+      quotes[i] = QuoteCodec.read(buffer, pos);
+      pos += QuoteCodec.length(buffer, pos);
+    }
+    return new QuoteBatch(quotes);
+  }
+
+  @Override
+  public QuoteBatch transform(QuoteBatch batch) {
+    return batch;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+}
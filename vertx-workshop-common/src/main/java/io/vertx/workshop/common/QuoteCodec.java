@@ -0,0 +1,159 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An event bus codec sending {@link Quote} using a compact binary layout instead of JSON:
+ * <pre>
+ * symbol length (short) | symbol (UTF-8) | name length (short) | name (UTF-8)
+ * bid (long) | ask (long) | open (long) | volume (int) | shares (int)
+ * </pre>
+ * The prices are written in ticks (see {@link Prices}).
+ * Local deliveries do not copy the quote as {@link Quote} is immutable.
+ * <p>
+ * The codec must be registered on every node sending or receiving quotes, use {@link #register(Vertx)}. Nodes that
+ * only forward the quotes to JSON consumers (such as the SockJS bridge) can register the {@link #asJson()} variant
+ * instead, decoding the same layout into {@link JsonObject}.
+ */
+public class QuoteCodec implements MessageCodec<Quote, Quote> {
+
+  /**
+   * The name of the codec, written on the wire.
+   */
+  public static final String NAME = "quote";
+
+  /**
+   * Registers the codec as default codec for {@link Quote} on the given Vert.x instance. Calling this method several
+   * times is harmless.
+   *
+   * @param vertx the Vert.x instance
+   */
+  public static void register(Vertx vertx) {
+    try {
+      vertx.eventBus().registerDefaultCodec(Quote.class, new QuoteCodec());
+    } catch (IllegalStateException e) {
+      // Already registered.
+    }
+  }
+
+  /**
+   * @return a codec reading the binary layout and producing the JSON representation of the quotes.
+   */
+  public static MessageCodec<Quote, JsonObject> asJson() {
+    return new MessageCodec<Quote, JsonObject>() {
+      @Override
+      public void encodeToWire(Buffer buffer, Quote quote) {
+        write(buffer, quote);
+      }
+
+      @Override
+      public JsonObject decodeFromWire(int pos, Buffer buffer) {
+        return read(buffer, pos).toJson();
+      }
+
+      @Override
+      public JsonObject transform(Quote quote) {
+        return quote.toJson();
+      }
+
+      @Override
+      public String name() {
+        return NAME;
+      }
+
+      @Override
+      public byte systemCodecID() {
+        return -1;
+      }
+    };
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, Quote quote) {
+    write(buffer, quote);
+  }
+
+  @Override
+  public Quote decodeFromWire(int pos, Buffer buffer) {
+    return read(buffer, pos);
+  }
+
+  @Override
+  public Quote transform(Quote quote) {
+    return quote;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+
+  /**
+   * Appends the binary representation of the quote to the given buffer.
+   *
+   * @param buffer the buffer
+   * @param quote  the quote
+   */
+  public static void write(Buffer buffer, Quote quote) {
+    writeString(buffer, quote.getSymbol());
+    writeString(buffer, quote.getName());
+    buffer
+        .appendLong(quote.getBidTicks())
+        .appendLong(quote.getAskTicks())
+        .appendLong(quote.getOpenTicks())
+        .appendInt(quote.getVolume())
+        .appendInt(quote.getShares());
+  }
+
+  /**
+   * Reads a quote written with {@link #write(Buffer, Quote)}.
+   *
+   * @param buffer the buffer
+   * @param pos    the position of the quote in the buffer
+   * @return the quote
+   */
+  public static Quote read(Buffer buffer, int pos) {
+    int length = buffer.getShort(pos);
+    pos += 2;
+    String symbol = buffer.getString(pos, pos + length, "UTF-8");
+    pos += length;
+    length = buffer.getShort(pos);
+    pos += 2;
+    String name = buffer.getString(pos, pos + length, "UTF-8");
+    pos += length;
+    long bid = buffer.getLong(pos);
+    long ask = buffer.getLong(pos + 8);
+    long open = buffer.getLong(pos + 16);
+    int volume = buffer.getInt(pos + 24);
+    int shares = buffer.getInt(pos + 28);
+    return Quote.fromTicks(symbol, name, bid, ask, volume, open, shares);
+  }
+
+  /**
+   * Computes the number of bytes written by {@link #write(Buffer, Quote)}.
+   *
+   * @param buffer the buffer
+   * @param pos    the position of the quote in the buffer
+   * @return the size of the quote in bytes
+   */
+  public static int length(Buffer buffer, int pos) {
+    int symbol = buffer.getShort(pos);
+    int name = buffer.getShort(pos + 2 + symbol);
+    return 2 + symbol + 2 + name + 32;
+  }
+
+  private static void writeString(Buffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.appendShort((short) bytes.length).appendBytes(bytes);
+  }
+}
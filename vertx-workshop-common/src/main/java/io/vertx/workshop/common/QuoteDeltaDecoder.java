@@ -0,0 +1,59 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds the quotes from the messages sent on the `market.delta` address.
+ * <p>
+ * Each message contains the `symbol` of the company and a `seq` number, incremented for each message of the company.
+ * A keyframe (`keyframe` set to {@code true}) contains the whole quote, while a delta only contains the fields that
+ * have changed since the previous message of the company (`bid`, `ask` or `shares`). A delta is only applied if the
+ * previous message of the company has been received; otherwise the company is out of sync until the next keyframe.
+ * <p>
+ * Instances are not thread-safe, they are meant to be used from a single consumer.
+ */
+public class QuoteDeltaDecoder {
+
+  private final Map<String, Quote> quotes = new HashMap<>();
+  private final Map<String, Long> sequences = new HashMap<>();
+
+  /**
+   * Applies a message.
+   *
+   * @param message the keyframe or delta
+   * @return the current quote of the company, {@code null} if the company is not in sync
+   */
+  public Quote apply(JsonObject message) {
+    String symbol = message.getString("symbol");
+    long seq = message.getLong("seq");
+
+    if (message.getBoolean("keyframe", false)) {
+      Quote quote = new Quote(message);
+      quotes.put(symbol, quote);
+      sequences.put(symbol, seq);
+      return quote;
+    }
+
+    Quote previous = quotes.get(symbol);
+    Long last = sequences.get(symbol);
+    if (previous == null || last == null || last + 1 != seq) {
+      // Missed a message, wait for the next keyframe
+      quotes.remove(symbol);
+      sequences.remove(symbol);
+      return null;
+    }
+
+    Quote quote = new Quote(symbol, previous.getName(),
+        message.getDouble("bid", previous.getBid()),
+        message.getDouble("ask", previous.getAsk()),
+        previous.getVolume(),
+        previous.getOpen(),
+        message.getInteger("shares", previous.getShares()));
+    quotes.put(symbol, quote);
+    sequences.put(symbol, seq);
+    return quote;
+  }
+}
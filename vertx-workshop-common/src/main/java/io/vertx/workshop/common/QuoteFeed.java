@@ -0,0 +1,71 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * The layout of the datagrams of the multicast market data feed:
+ * <pre>
+ * source (int) | sequence number (long) | quote (see {@link QuoteCodec})
+ * </pre>
+ * The source identifies the sender (it changes when the sender restarts), and the sequence number is incremented for
+ * each datagram of the source, so the receivers can detect the lost datagrams.
+ */
+public final class QuoteFeed {
+
+  /**
+   * The default multicast group.
+   */
+  public static final String DEFAULT_GROUP = "239.255.42.42";
+
+  /**
+   * The default port.
+   */
+  public static final int DEFAULT_PORT = 35200;
+
+  /**
+   * The size of the header (source and sequence number), before the quote.
+   */
+  public static final int HEADER = 4 + 8;
+
+  private QuoteFeed() {
+    // Avoid direct instantiation.
+  }
+
+  /**
+   * Encodes a datagram.
+   *
+   * @param source the source
+   * @param seq    the sequence number
+   * @param quote  the quote
+   * @return the datagram
+   */
+  public static Buffer encode(int source, long seq, Quote quote) {
+    Buffer buffer = Buffer.buffer(64).appendInt(source).appendLong(seq);
+    QuoteCodec.write(buffer, quote);
+    return buffer;
+  }
+
+  /**
+   * @param datagram the datagram
+   * @return the source
+   */
+  public static int source(Buffer datagram) {
+    return datagram.getInt(0);
+  }
+
+  /**
+   * @param datagram the datagram
+   * @return the sequence number
+   */
+  public static long sequence(Buffer datagram) {
+    return datagram.getLong(4);
+  }
+
+  /**
+   * @param datagram the datagram
+   * @return the quote
+   */
+  public static Quote quote(Buffer datagram) {
+    return QuoteCodec.read(datagram, HEADER);
+  }
+}
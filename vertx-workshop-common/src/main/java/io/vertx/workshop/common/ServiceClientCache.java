@@ -0,0 +1,161 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.ServiceReference;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the service objects (web clients, service proxies, message consumers) retrieved from the discovery,
+ * keyed by their filter and type. Looking up the record and creating the client (and its connection pool) is only
+ * done the first time, the next calls get the same object.
+ * <p>
+ * The entries are released (the clients are closed, the consumers unregistered) when the discovery announces that
+ * their record has been unpublished or modified, so the next call retrieves the new record.
+ */
+public class ServiceClientCache {
+
+  private final ServiceDiscovery discovery;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final MessageConsumer<JsonObject> announces;
+
+  /**
+   * Creates a new instance of {@link ServiceClientCache}.
+   *
+   * @param vertx     the Vert.x instance
+   * @param discovery the discovery
+   */
+  public ServiceClientCache(Vertx vertx, ServiceDiscovery discovery) {
+    this.discovery = discovery;
+    this.announces = vertx.eventBus().consumer(discovery.options().getAnnounceAddress(),
+        message -> invalidate(new Record(message.body())));
+  }
+
+  /**
+   * Gets a web client on the HTTP endpoint matching the filter.
+   *
+   * @param filter  the filter
+   * @param handler the handler called with the client
+   */
+  public void getWebClient(JsonObject filter, Handler<AsyncResult<WebClient>> handler) {
+    get(filter, WebClient.class, handler);
+  }
+
+  /**
+   * Gets a proxy on the event bus service matching the filter.
+   *
+   * @param filter      the filter
+   * @param serviceType the interface of the service
+   * @param handler     the handler called with the proxy
+   * @param <T>         the type of service
+   */
+  public <T> void getServiceProxy(JsonObject filter, Class<T> serviceType, Handler<AsyncResult<T>> handler) {
+    get(filter, serviceType, handler);
+  }
+
+  /**
+   * Gets a consumer of the message source matching the filter. The consumer is shared by the callers using the same
+   * filter, so it has a single handler.
+   *
+   * @param filter  the filter
+   * @param handler the handler called with the consumer
+   * @param <T>     the type of message
+   */
+  @SuppressWarnings("unchecked")
+  public <T> void getMessageConsumer(JsonObject filter, Handler<AsyncResult<MessageConsumer<T>>> handler) {
+    get(filter, MessageConsumer.class, ar -> handler.handle(ar.map(consumer -> (MessageConsumer<T>) consumer)));
+  }
+
+  private <T> void get(JsonObject filter, Class<T> type, Handler<AsyncResult<T>> handler) {
+    String key = type.getName() + filter.encode();
+    Entry cached = entries.get(key);
+    if (cached != null) {
+      handler.handle(Future.succeededFuture(type.cast(cached.service)));
+      return;
+    }
+
+    discovery.getRecord(filter, ar -> {
+      if (ar.failed()) {
+        handler.handle(Future.failedFuture(ar.cause()));
+      } else if (ar.result() == null) {
+        handler.handle(Future.failedFuture("No service matching " + filter.encode()));
+      } else {
+        ServiceReference reference = discovery.getReference(ar.result());
+        Entry entry = new Entry(reference, reference.getAs(type));
+        Entry existing = entries.putIfAbsent(key, entry);
+        if (existing != null) {
+          // Retrieved concurrently, keep the first one
+          reference.release();
+          entry = existing;
+        }
+        handler.handle(Future.succeededFuture(type.cast(entry.service)));
+      }
+    });
+  }
+
+  /**
+   * Releases the entries using the announced record.
+   *
+   * @param announced the announced record
+   */
+  private void invalidate(Record announced) {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (matches(entry.reference.record(), announced)) {
+        iterator.remove();
+        entry.reference.release();
+      }
+    }
+  }
+
+  /**
+   * The unpublished records are announced without their registration id, so they are compared by name, type and
+   * location.
+   */
+  private static boolean matches(Record cached, Record announced) {
+    if (announced.getRegistration() != null) {
+      return announced.getRegistration().equals(cached.getRegistration());
+    }
+    return Objects.equals(cached.getName(), announced.getName())
+        && Objects.equals(cached.getType(), announced.getType())
+        && Objects.equals(cached.getLocation(), announced.getLocation());
+  }
+
+  /**
+   * @return the number of cached service objects
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Releases all the cached service objects.
+   */
+  public void close() {
+    announces.unregister();
+    entries.values().forEach(entry -> entry.reference.release());
+    entries.clear();
+  }
+
+  private static class Entry {
+    private final ServiceReference reference;
+    private final Object service;
+
+    Entry(ServiceReference reference, Object service) {
+      this.reference = reference;
+      this.service = service;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package io.vertx.workshop.common;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(VertxUnitRunner.class)
+public class ConflatingQuoteStreamTest {
+
+  private static final String ADDRESS = "market";
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    QuoteCodec.register(vertx);
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testThatOnlyTheLastQuotesAreKeptWhilePaused(TestContext tc) {
+    Async async = tc.async();
+    // The stream is used from the context of the consumer.
+    vertx.runOnContext(v -> {
+      List<Quote> received = new ArrayList<>();
+      ConflatingQuoteStream stream = new ConflatingQuoteStream(
+          vertx.eventBus().consumer(ADDRESS));
+      stream.handler(received::add);
+
+      vertx.eventBus().publish(ADDRESS, quote("A", 1.0));
+      vertx.setTimer(100, l1 -> {
+        tc.assertEquals(1, received.size());
+
+        stream.pause();
+        for (int i = 2; i <= 100; i++) {
+          vertx.eventBus().publish(ADDRESS, quote("A", i));
+          vertx.eventBus().publish(ADDRESS, quote("B", i));
+        }
+
+        vertx.setTimer(100, l2 -> {
+          // One slot per company
+          tc.assertEquals(2, stream.pending());
+          tc.assertEquals(1, received.size());
+
+          stream.resume();
+          tc.assertEquals(0, stream.pending());
+          tc.assertEquals(3, received.size());
+          tc.assertEquals(100.0, received.get(1).getBid());
+          tc.assertEquals("B", received.get(2).getName());
+          tc.assertEquals(100.0, received.get(2).getBid());
+          async.complete();
+        });
+      });
+    });
+  }
+
+  private static Quote quote(String name, double bid) {
+    return new Quote(name, name, bid, bid + 1, 1000, 10.0, 500);
+  }
+}